@@ -0,0 +1,22 @@
+public class Account {
+    private final int id;
+    private final String userName;
+    private final String name;
+
+    public Account(int id, String userName, String name) {
+        this.id = id;
+        this.userName = userName;
+        this.name = name;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public String getUserName() { return userName; }
+    public String getName() { return name; }
+
+    // Shown as-is in the account selector
+    @Override
+    public String toString() {
+        return name;
+    }
+}
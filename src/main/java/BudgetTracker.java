@@ -0,0 +1,107 @@
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps running expense totals per category and month so budget progress can be
+// read and updated in O(1) per transaction instead of re-summing the ledger. A
+// ledger shown from scratch is counted once with rebuild(); after that only the
+// rows each caught-up snapshot adds are recorded. Deletions make the loader read
+// the whole ledger again, which comes back here as a rebuild.
+// Limits and spending are in the base currency.
+public class BudgetTracker {
+
+    public enum Alert { NONE, WARNING, EXCEEDED }
+
+    public static final double WARNING_RATIO = 0.8;
+
+    private final Map<String, Double> limits = new HashMap<>();
+    private final Map<YearMonth, Map<String, Double>> spending = new HashMap<>();
+    private final FxRates fx;
+
+    public BudgetTracker(FxRates fx) {
+        this.fx = fx;
+    }
+
+    public void setLimits(Map<String, Double> monthlyLimits) {
+        limits.clear();
+        limits.putAll(monthlyLimits);
+    }
+
+    public void setLimit(String category, double monthlyLimit) {
+        limits.put(category, monthlyLimit);
+    }
+
+    // Full recount, only needed when a ledger is shown without a known base
+    public void rebuild(List<Transaction> transactions) {
+        spending.clear();
+        for (Transaction t : transactions) {
+            add(t);
+        }
+    }
+
+    // Records a new transaction and reports whether it pushed its category over a threshold
+    public Alert record(Transaction t) {
+        if (t.isIncome()) {
+            return Alert.NONE;
+        }
+        YearMonth month = monthOf(t);
+        double before = getSpent(t.getCategory(), month);
+        add(t);
+        // Back-dated postings (e.g. recurring catch-up) never raise alerts
+        if (!month.equals(YearMonth.now())) {
+            return Alert.NONE;
+        }
+        return alertFor(t.getCategory(), before, before + fx.toBase(t));
+    }
+
+    public double getSpent(String category, YearMonth month) {
+        Map<String, Double> byCategory = spending.get(month);
+        if (byCategory == null) {
+            return 0.0;
+        }
+        return byCategory.getOrDefault(category, 0.0);
+    }
+
+    public double getLimit(String category) {
+        return limits.getOrDefault(category, 0.0);
+    }
+
+    public boolean hasLimit(String category) {
+        return getLimit(category) > 0;
+    }
+
+    // Fraction of this month's budget used, 0 when the category has no budget
+    public double getProgress(String category) {
+        double limit = getLimit(category);
+        return limit > 0 ? getSpent(category, YearMonth.now()) / limit : 0.0;
+    }
+
+    private void add(Transaction t) {
+        if (t.isIncome()) {
+            return;
+        }
+        spending.computeIfAbsent(monthOf(t), m -> new HashMap<>())
+                .merge(t.getCategory(), fx.toBase(t), Double::sum);
+    }
+
+    private Alert alertFor(String category, double before, double after) {
+        double limit = getLimit(category);
+        if (limit <= 0) {
+            return Alert.NONE;
+        }
+        if (before < limit && after >= limit) {
+            return Alert.EXCEEDED;
+        }
+        if (before < limit * WARNING_RATIO && after >= limit * WARNING_RATIO) {
+            return Alert.WARNING;
+        }
+        return Alert.NONE;
+    }
+
+    private static YearMonth monthOf(Transaction t) {
+        return YearMonth.from(Instant.ofEpochMilli(t.getDateCreated()).atZone(ZoneId.systemDefault()));
+    }
+}
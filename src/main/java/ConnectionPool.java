@@ -0,0 +1,118 @@
+import java.sql.SQLException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Small fixed-size pool of physical connections. Every pooled connection keeps
+// its prepared statements open, so repeated refreshes skip the parse and plan
+// round-trip entirely.
+public final class ConnectionPool {
+
+    private static final int MAX_SIZE = Integer.getInteger("finance.db.poolSize", 8);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("finance.db.statementCacheSize", 64);
+    private static final long ACQUIRE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+    // Connections idle longer than this are validated before being handed out
+    private static final long VALIDATE_AFTER_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private static final Semaphore permits = new Semaphore(MAX_SIZE, true);
+
+    private static final LongAdder statementHits = new LongAdder();
+    private static final LongAdder statementMisses = new LongAdder();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ConnectionPool::shutdown, "connection-pool-shutdown"));
+    }
+
+    private ConnectionPool() {
+    }
+
+    public static PooledConnection acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            // Most recently used first, so hot connections keep their statement caches warm
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                boolean stale = System.currentTimeMillis() - pooled.getLastUsed() > VALIDATE_AFTER_MS;
+                if (!stale || pooled.getConnection().isValid(2)) {
+                    pooled.lease();
+                    return pooled;
+                }
+                pooled.closePhysical();
+            }
+            pooled = new PooledConnection(DatabaseConnection.getConnection(), STATEMENT_CACHE_SIZE);
+            pooled.lease();
+            return pooled;
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    static void release(PooledConnection pooled) {
+        if (pooled.reset()) {
+            idle.offerFirst(pooled);
+        } else {
+            pooled.closePhysical();
+        }
+        permits.release();
+    }
+
+    public static void shutdown() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    public static int getMaxSize() {
+        return MAX_SIZE;
+    }
+
+    // Connections currently leased to callers
+    public static int getActiveCount() {
+        return MAX_SIZE - permits.availablePermits();
+    }
+
+    public static int getIdleCount() {
+        return idle.size();
+    }
+
+    static void recordHit() {
+        statementHits.increment();
+    }
+
+    static void recordMiss() {
+        statementMisses.increment();
+    }
+
+    public static long getStatementHits() {
+        return statementHits.sum();
+    }
+
+    public static long getStatementMisses() {
+        return statementMisses.sum();
+    }
+
+    public static double getStatementHitRatio() {
+        long hits = getStatementHits();
+        long total = hits + getStatementMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public static String getStatementCacheStats() {
+        return String.format("%d hits, %d misses (%.1f%% hit ratio)",
+                getStatementHits(), getStatementMisses(), getStatementHitRatio() * 100);
+    }
+}
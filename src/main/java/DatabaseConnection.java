@@ -9,38 +9,106 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/finance_tracker";
-    private static final String USERNAME = "root";
-    private static final String PASSWORD = "";
+    // Overridable with -Dfinance.db.url / .user / .password so each desktop can
+    // log in with its own database account instead of root
+    private static final String URL = System.getProperty("finance.db.url", "jdbc:mysql://localhost:3306/finance_tracker");
+    private static final String USERNAME = System.getProperty("finance.db.user", "root");
+    private static final String PASSWORD = System.getProperty("finance.db.password", "");
 
+    private static final int BATCH_SIZE = 500;
+
+    // Rows created before accounts existed belong to this account
+    public static final int DEFAULT_ACCOUNT_ID = 1;
+    // Rows without a currency (everything before currencies existed) are shillings
+    public static final String DEFAULT_CURRENCY = "KES";
+    // Transfers move money between accounts but are neither income nor expense
+    public static final String TRANSFER_CATEGORY = "⇄ Transfer";
+
+    // Opens a new physical connection; DAO methods lease pooled ones from ConnectionPool
     public static Connection getConnection() throws SQLException {
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
+            if (isMySql()) {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            }
+            return DriverManager.getConnection(URL, connectionProperties());
         } catch (ClassNotFoundException e) {
             throw new SQLException("MySQL Driver not found", e);
         }
     }
 
-    // Insert a new transaction
-    public static boolean insertTransaction(double amount, String description, String category, boolean isIncome) {
-        String query = "INSERT INTO transactions (amount, description, category, is_income) VALUES (?, ?, ?, ?)";
+    // Anything else is a local stand-in (the load test runs on H2 in MySQL mode)
+    private static boolean isMySql() {
+        return URL.startsWith("jdbc:mysql:");
+    }
+
+    // Short id of the configured database and login, so local caches of two
+    // databases with the same account ids never mix
+    public static String databaseKey() {
+        return Integer.toHexString((URL + "\n" + USERNAME).hashCode());
+    }
+
+    // Server-side prepared statements let MySQL keep the parsed plan per connection.
+    // PooledConnection's LRU is the only statement cache: it keeps the handles open
+    // and counts hits. The driver's own cache is off, so a statement evicted from
+    // the LRU really is closed on the server instead of parked in a second cache.
+    private static Properties connectionProperties() {
+        Properties props = new Properties();
+        props.setProperty("user", USERNAME);
+        props.setProperty("password", PASSWORD);
+        if (isMySql()) {
+            props.setProperty("useServerPrepStmts", "true");
+            props.setProperty("cachePrepStmts", "false");
+        }
+        return props;
+    }
+
+    // Insert a new transaction in the default currency
+    public static boolean insertTransaction(int accountId, long amountCents, String description, String category, boolean isIncome) {
+        return insertTransaction(accountId, amountCents, DEFAULT_CURRENCY, description, category, isIncome);
+    }
+
+    // Insert a new transaction and update the account's cached balance with it;
+    // the amount is in exact cents
+    public static boolean insertTransaction(int accountId, long amountCents, String currency, String description, String category, boolean isIncome) {
+        String query = "INSERT INTO transactions (account_id, amount, currency, description, category, is_income) VALUES (?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setDouble(1, amount);
-            pstmt.setString(2, description);
-            pstmt.setString(3, category);
-            pstmt.setBoolean(4, isIncome);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            conn.setAutoCommit(false);
+
+            try {
+                PreparedStatement pstmt = conn.prepare(query);
+                pstmt.setInt(1, accountId);
+                pstmt.setBigDecimal(2, BigDecimal.valueOf(amountCents, 2));
+                pstmt.setString(3, currency);
+                pstmt.setString(4, description);
+                pstmt.setString(5, category);
+                pstmt.setBoolean(6, isIncome);
+                int rowsAffected = pstmt.executeUpdate();
+
+                Map<Integer, Map<String, Long>> deltas = new TreeMap<>();
+                addDelta(deltas, accountId, currency, isIncome ? amountCents : -amountCents);
+                applyBalanceDeltas(conn, deltas);
+
+                conn.commit();
+                return rowsAffected > 0;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
             
         } catch (SQLException e) {
             System.err.println("Error inserting transaction: " + e.getMessage());
@@ -48,96 +116,1026 @@ public class DatabaseConnection {
         }
     }
 
-    // Get all transactions
-    public static List<Transaction> getAllTransactions() {
+    // Get all transactions of one account, or null on error
+    public static List<Transaction> getAllTransactions(int accountId) {
         List<Transaction> transactions = new ArrayList<>();
-        String query = "SELECT * FROM transactions ORDER BY date_created DESC";
+        String query = "SELECT id, account_id, amount, currency, description, category, is_income, date_created "
+                + "FROM transactions WHERE account_id = ? ORDER BY date_created DESC";
         
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                Transaction transaction = new Transaction(
-                    rs.getInt("id"),
-                    rs.getDouble("amount"),
-                    rs.getString("description"),
-                    rs.getString("category"),
-                    rs.getBoolean("is_income"),
-                    rs.getTimestamp("date_created")
-                );
-                transactions.add(transaction);
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setInt(1, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                TransactionRowMapper mapper = new TransactionRowMapper(rs);
+                while (rs.next()) {
+                    transactions.add(mapper.map(rs));
+                }
             }
             
         } catch (SQLException e) {
             System.err.println("Error retrieving transactions: " + e.getMessage());
+            return null;
         }
         
         return transactions;
     }
 
-    // Get total income
-    public static double getTotalIncome() {
-        String query = "SELECT SUM(amount) FROM transactions WHERE is_income = true";
-        
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            if (rs.next()) {
-                return rs.getDouble(1);
+    // Get transactions of one account added after a known id, oldest first
+    public static List<Transaction> getTransactionsAfter(int accountId, int afterId) {
+        List<Transaction> transactions = new ArrayList<>();
+        String query = "SELECT id, account_id, amount, currency, description, category, is_income, date_created "
+                + "FROM transactions WHERE account_id = ? AND id > ? ORDER BY id";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setInt(1, accountId);
+            pstmt.setInt(2, afterId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                TransactionRowMapper mapper = new TransactionRowMapper(rs);
+                while (rs.next()) {
+                    transactions.add(mapper.map(rs));
+                }
             }
-            
+
         } catch (SQLException e) {
-            System.err.println("Error calculating total income: " + e.getMessage());
+            System.err.println("Error retrieving new transactions: " + e.getMessage());
+            return null;
         }
-        
-        return 0.0;
+
+        return transactions;
     }
 
-    // Get total expenses
-    public static double getTotalExpenses() {
-        String query = "SELECT SUM(amount) FROM transactions WHERE is_income = false";
-        
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
+    // Get one page of an account's transactions, newest first, including closed
+    // periods from the archive. Returns null on error.
+    public static List<Transaction> getTransactionsPage(int accountId, int offset, int limit) {
+        List<Transaction> transactions = new ArrayList<>();
+        String columns = "id, account_id, amount, currency, description, category, is_income, date_created";
+        String query = "SELECT " + columns + " FROM transactions WHERE account_id = ? "
+                + "UNION ALL SELECT " + columns + " FROM transactions_archive WHERE account_id = ? "
+                + "ORDER BY date_created DESC, id DESC LIMIT ? OFFSET ?";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setInt(1, accountId);
+            pstmt.setInt(2, accountId);
+            pstmt.setInt(3, limit);
+            pstmt.setInt(4, offset);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                TransactionRowMapper mapper = new TransactionRowMapper(rs);
+                while (rs.next()) {
+                    transactions.add(mapper.map(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving transaction page: " + e.getMessage());
+            return null;
+        }
+
+        return transactions;
+    }
+
+    // Find an account's transactions whose description or category contains the text,
+    // newest first, including closed periods from the archive. Returns null on error.
+    public static List<Transaction> searchTransactions(int accountId, String text, int limit) {
+        List<Transaction> transactions = new ArrayList<>();
+        String columns = "id, account_id, amount, currency, description, category, is_income, date_created";
+        String match = "WHERE account_id = ? AND (description LIKE ? OR category LIKE ?) ";
+        String query = "SELECT " + columns + " FROM transactions " + match
+                + "UNION ALL SELECT " + columns + " FROM transactions_archive " + match
+                + "ORDER BY date_created DESC, id DESC LIMIT ?";
+        // Match the text literally, not as a LIKE pattern
+        String pattern = "%" + text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            for (int offset = 0; offset <= 3; offset += 3) {
+                pstmt.setInt(offset + 1, accountId);
+                pstmt.setString(offset + 2, pattern);
+                pstmt.setString(offset + 3, pattern);
+            }
+            pstmt.setInt(7, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                TransactionRowMapper mapper = new TransactionRowMapper(rs);
+                while (rs.next()) {
+                    transactions.add(mapper.map(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error searching transactions: " + e.getMessage());
+            return null;
+        }
+
+        return transactions;
+    }
+
+    // Cheap change marker for one account: {row count, highest id}, or null on error
+    public static long[] getLedgerMarker(int accountId) {
+        String query = "SELECT COUNT(*), COALESCE(MAX(id), 0) FROM transactions WHERE account_id = ?";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setInt(1, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new long[] {rs.getLong(1), rs.getLong(2)};
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error reading ledger marker: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    // Create the original transactions table on an empty database; later columns
+    // are added by the ensure*Schema migrations
+    public static boolean ensureTransactionsTable() {
+        String query = "CREATE TABLE IF NOT EXISTS transactions ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "amount DECIMAL(12,2) NOT NULL, "
+                + "description VARCHAR(255) NOT NULL, "
+                + "category VARCHAR(100) NOT NULL, "
+                + "is_income BOOLEAN NOT NULL, "
+                + "date_created TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+
+        try (PooledConnection conn = ConnectionPool.acquire();
+             Statement stmt = conn.getConnection().createStatement()) {
+
+            stmt.execute(query);
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error creating transactions table: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Give every transaction its own currency; existing rows are shillings
+    public static boolean ensureCurrencySchema() {
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            addColumnIfMissing(conn.getConnection(), "transactions", "currency", "CHAR(3) NOT NULL DEFAULT '" + DEFAULT_CURRENCY + "'");
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error adding transaction currencies: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Create the accounts table and scope the ledger by account. MySQL partitioning
+    // would require account_id in every unique key (including the id primary key),
+    // so per-account reads use a (account_id, date_created) index range instead.
+    public static boolean ensureAccountSchema(String userName) {
+        String createAccounts = "CREATE TABLE IF NOT EXISTS accounts ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "user_name VARCHAR(100) NOT NULL, "
+                + "name VARCHAR(100) NOT NULL, "
+                + "UNIQUE KEY uk_accounts_user_name (user_name, name))";
+        // The first account adopts every pre-existing row
+        String seedDefault = "INSERT INTO accounts (id, user_name, name) "
+                + "SELECT ?, ?, 'Cash' FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM accounts)";
+
+        try (PooledConnection conn = ConnectionPool.acquire();
+             Statement stmt = conn.getConnection().createStatement()) {
+
+            stmt.execute(createAccounts);
+            addColumnIfMissing(conn.getConnection(), "transactions", "account_id", "INT NOT NULL DEFAULT " + DEFAULT_ACCOUNT_ID);
+            if (!indexExists(conn.getConnection(), "transactions", "idx_transactions_account_date")) {
+                stmt.execute("CREATE INDEX idx_transactions_account_date ON transactions (account_id, date_created)");
+            }
+
+            PreparedStatement pstmt = conn.prepare(seedDefault);
+            pstmt.setInt(1, DEFAULT_ACCOUNT_ID);
+            pstmt.setString(2, userName);
+            pstmt.executeUpdate();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error preparing account schema: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Get the accounts owned by a user
+    public static List<Account> getAccounts(String userName) {
+        List<Account> accounts = new ArrayList<>();
+        String query = "SELECT id, user_name, name FROM accounts WHERE user_name = ? ORDER BY id";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    accounts.add(new Account(rs.getInt(1), rs.getString(2), rs.getString(3)));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving accounts: " + e.getMessage());
+        }
+
+        return accounts;
+    }
+
+    // Create an account for a user, returns the generated id or -1
+    public static int createAccount(String userName, String name) {
+        String query = "INSERT INTO accounts (user_name, name) VALUES (?, ?)";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepareWithKeys(query);
+
+            pstmt.setString(1, userName);
+            pstmt.setString(2, name);
+            pstmt.executeUpdate();
+
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : -1;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error creating account: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Move money between two accounts: both legs commit together
+    public static boolean transfer(int fromAccountId, int toAccountId, long amountCents, String currency, String description) {
+        String query = "INSERT INTO transactions (account_id, amount, currency, description, category, is_income) VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            conn.setAutoCommit(false);
+
+            try {
+                PreparedStatement pstmt = conn.prepare(query);
+                pstmt.setInt(1, fromAccountId);
+                pstmt.setBigDecimal(2, BigDecimal.valueOf(amountCents, 2));
+                pstmt.setString(3, currency);
+                pstmt.setString(4, description);
+                pstmt.setString(5, TRANSFER_CATEGORY);
+                pstmt.setBoolean(6, false);
+                pstmt.addBatch();
+
+                pstmt.setInt(1, toAccountId);
+                pstmt.setBoolean(6, true);
+                pstmt.addBatch();
+                pstmt.executeBatch();
+
+                Map<Integer, Map<String, Long>> deltas = new TreeMap<>();
+                addDelta(deltas, fromAccountId, currency, -amountCents);
+                addDelta(deltas, toAccountId, currency, amountCents);
+                applyBalanceDeltas(conn, deltas);
+
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error transferring between accounts: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Returns true if the column had to be added
+    private static boolean addColumnIfMissing(Connection conn, String table, String column, String definition) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
             if (rs.next()) {
-                return rs.getDouble(1);
+                return false;
             }
-            
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+        return true;
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, new String[] {"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private static boolean indexExists(Connection conn, String table, String index) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Create the archive and period summary tables if they are missing
+    public static boolean ensureArchiveSchema() {
+        String createArchive = "CREATE TABLE IF NOT EXISTS transactions_archive ("
+                + "id INT PRIMARY KEY, "
+                + "account_id INT NOT NULL, "
+                + "amount DECIMAL(12,2) NOT NULL, "
+                + "description VARCHAR(255) NOT NULL, "
+                + "currency CHAR(3) NOT NULL DEFAULT '" + DEFAULT_CURRENCY + "', "
+                + "category VARCHAR(100) NOT NULL, "
+                + "is_income BOOLEAN NOT NULL, "
+                + "date_created TIMESTAMP NOT NULL, "
+                + "INDEX idx_archive_account_date (account_id, date_created))";
+        String createSummaries = "CREATE TABLE IF NOT EXISTS period_summaries ("
+                + "account_id INT NOT NULL, "
+                + "period CHAR(7) NOT NULL, "
+                + "currency CHAR(3) NOT NULL DEFAULT '" + DEFAULT_CURRENCY + "', "
+                + "income DECIMAL(14,2) NOT NULL, "
+                + "expenses DECIMAL(14,2) NOT NULL, "
+                + "transfers_net DECIMAL(14,2) NOT NULL, "
+                + "row_count INT NOT NULL, "
+                + "closing_balance DECIMAL(14,2) NOT NULL, "
+                + "closed_at TIMESTAMP NOT NULL, "
+                + "PRIMARY KEY (account_id, period, currency))";
+
+        try (PooledConnection conn = ConnectionPool.acquire();
+             Statement stmt = conn.getConnection().createStatement()) {
+
+            stmt.execute(createArchive);
+            stmt.execute(createSummaries);
+            addColumnIfMissing(conn.getConnection(), "transactions_archive", "currency",
+                    "CHAR(3) NOT NULL DEFAULT '" + DEFAULT_CURRENCY + "'");
+            // Summaries from before currencies existed are re-keyed per currency
+            if (addColumnIfMissing(conn.getConnection(), "period_summaries", "currency",
+                    "CHAR(3) NOT NULL DEFAULT '" + DEFAULT_CURRENCY + "'")) {
+                stmt.execute("ALTER TABLE period_summaries DROP PRIMARY KEY");
+                stmt.execute("ALTER TABLE period_summaries ADD PRIMARY KEY (account_id, period, currency)");
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error creating archive tables: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Create the cached per-account, per-currency balances. Amounts in different
+    // currencies are never added up, so each currency keeps its own running total.
+    // Every write path updates it in the same database transaction as its rows;
+    // closing a period moves rows to the archive and leaves it unchanged. On
+    // first creation it is filled from the live and archived rows.
+    public static boolean ensureBalanceSchema() {
+        String create = "CREATE TABLE account_balances ("
+                + "account_id INT NOT NULL, "
+                + "currency CHAR(3) NOT NULL, "
+                + "balance DECIMAL(14,2) NOT NULL, "
+                + "PRIMARY KEY (account_id, currency))";
+        String backfill = "INSERT INTO account_balances (account_id, currency, balance) "
+                + "SELECT account_id, currency, SUM(CASE WHEN is_income THEN amount ELSE -amount END) FROM ("
+                + "SELECT account_id, currency, amount, is_income FROM transactions "
+                + "UNION ALL SELECT account_id, currency, amount, is_income FROM transactions_archive) t "
+                + "GROUP BY account_id, currency";
+
+        try (PooledConnection conn = ConnectionPool.acquire();
+             Statement stmt = conn.getConnection().createStatement()) {
+
+            if (!tableExists(conn.getConnection(), "account_balances")) {
+                stmt.execute(create);
+                stmt.execute(backfill);
+            }
+            return true;
+
         } catch (SQLException e) {
-            System.err.println("Error calculating total expenses: " + e.getMessage());
+            System.err.println("Error creating account balances: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Cached balances of one account in cents, keyed by currency, or null on error
+    public static Map<String, Long> getAccountBalances(int accountId) {
+        Map<String, Long> balances = new TreeMap<>();
+        String query = "SELECT currency, balance FROM account_balances WHERE account_id = ?";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setInt(1, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    balances.put(rs.getString(1), rs.getBigDecimal(2).movePointRight(2).longValueExact());
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving account balances: " + e.getMessage());
+            return null;
+        }
+
+        return balances;
+    }
+
+    // Signed per-account, per-currency sums of the rows in cents; sign is 1 for
+    // rows being added and -1 for rows being removed
+    private static Map<Integer, Map<String, Long>> balanceDeltas(List<Transaction> rows, int sign) {
+        Map<Integer, Map<String, Long>> deltas = new TreeMap<>();
+        for (Transaction t : rows) {
+            addDelta(deltas, t.getAccountId(), t.getCurrency(), sign * (t.isIncome() ? t.getAmountCents() : -t.getAmountCents()));
+        }
+        return deltas;
+    }
+
+    private static void addDelta(Map<Integer, Map<String, Long>> deltas, int accountId, String currency, long cents) {
+        deltas.computeIfAbsent(accountId, id -> new TreeMap<>()).merge(currency, cents, Long::sum);
+    }
+
+    // Add the deltas to account_balances on the caller's connection and database
+    // transaction. The sorted maps make every writer lock balance rows in the same
+    // order. INSERT IGNORE plus UPDATE instead of an upsert, so the H2 load test
+    // database runs the same statements.
+    private static void applyBalanceDeltas(PooledConnection conn, Map<Integer, Map<String, Long>> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        PreparedStatement seedStmt = conn.prepare("INSERT IGNORE INTO account_balances (account_id, currency, balance) VALUES (?, ?, 0)");
+        PreparedStatement addStmt = conn.prepare("UPDATE account_balances SET balance = balance + ? WHERE account_id = ? AND currency = ?");
+        for (Map.Entry<Integer, Map<String, Long>> account : deltas.entrySet()) {
+            for (Map.Entry<String, Long> delta : account.getValue().entrySet()) {
+                seedStmt.setInt(1, account.getKey());
+                seedStmt.setString(2, delta.getKey());
+                seedStmt.addBatch();
+                addStmt.setBigDecimal(1, BigDecimal.valueOf(delta.getValue(), 2));
+                addStmt.setInt(2, account.getKey());
+                addStmt.setString(3, delta.getKey());
+                addStmt.addBatch();
+            }
+        }
+        seedStmt.executeBatch();
+        addStmt.executeBatch();
+    }
+
+    // Freeze every month before firstOpenMonth into period summaries and move its
+    // detail rows into transactions_archive, all in one database transaction.
+    // Returns the number of archived rows, or -1 on error.
+    public static int closePeriodsBefore(int accountId, YearMonth firstOpenMonth) {
+        if (firstOpenMonth.isAfter(YearMonth.now())) {
+            System.err.println("Cannot close the current or future periods: " + firstOpenMonth);
+            return -1;
+        }
+        Timestamp cutoff = Timestamp.valueOf(firstOpenMonth.atDay(1).atStartOfDay());
+
+        String summarize = "SELECT YEAR(date_created), MONTH(date_created), currency, "
+                + "SUM(CASE WHEN category = ? THEN 0 WHEN is_income THEN amount ELSE 0 END), "
+                + "SUM(CASE WHEN category = ? OR is_income THEN 0 ELSE amount END), "
+                + "SUM(CASE WHEN category <> ? THEN 0 WHEN is_income THEN amount ELSE -amount END), "
+                + "COUNT(*) "
+                + "FROM transactions WHERE account_id = ? AND date_created < ? "
+                + "GROUP BY YEAR(date_created), MONTH(date_created), currency";
+        // Late back-dated rows in an already closed month are folded into its summary
+        String upsert = "INSERT INTO period_summaries "
+                + "(account_id, period, currency, income, expenses, transfers_net, row_count, closing_balance, closed_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, 0, CURRENT_TIMESTAMP) AS new "
+                + "ON DUPLICATE KEY UPDATE income = income + new.income, expenses = expenses + new.expenses, "
+                + "transfers_net = transfers_net + new.transfers_net, row_count = row_count + new.row_count, "
+                + "closed_at = new.closed_at";
+        String archive = "INSERT INTO transactions_archive (id, account_id, amount, currency, description, category, is_income, date_created) "
+                + "SELECT id, account_id, amount, currency, description, category, is_income, date_created "
+                + "FROM transactions WHERE account_id = ? AND date_created < ?";
+        String delete = "DELETE FROM transactions WHERE account_id = ? AND date_created < ?";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            conn.setAutoCommit(false);
+
+            try {
+                PreparedStatement summarizeStmt = conn.prepare(summarize);
+                summarizeStmt.setString(1, TRANSFER_CATEGORY);
+                summarizeStmt.setString(2, TRANSFER_CATEGORY);
+                summarizeStmt.setString(3, TRANSFER_CATEGORY);
+                summarizeStmt.setInt(4, accountId);
+                summarizeStmt.setTimestamp(5, cutoff);
+
+                PreparedStatement upsertStmt = conn.prepare(upsert);
+                try (ResultSet rs = summarizeStmt.executeQuery()) {
+                    while (rs.next()) {
+                        upsertStmt.setInt(1, accountId);
+                        upsertStmt.setString(2, YearMonth.of(rs.getInt(1), rs.getInt(2)).toString());
+                        upsertStmt.setString(3, rs.getString(3));
+                        upsertStmt.setBigDecimal(4, rs.getBigDecimal(4));
+                        upsertStmt.setBigDecimal(5, rs.getBigDecimal(5));
+                        upsertStmt.setBigDecimal(6, rs.getBigDecimal(6));
+                        upsertStmt.setInt(7, rs.getInt(7));
+                        upsertStmt.addBatch();
+                    }
+                }
+                upsertStmt.executeBatch();
+
+                PreparedStatement archiveStmt = conn.prepare(archive);
+                archiveStmt.setInt(1, accountId);
+                archiveStmt.setTimestamp(2, cutoff);
+                int archived = archiveStmt.executeUpdate();
+
+                PreparedStatement deleteStmt = conn.prepare(delete);
+                deleteStmt.setInt(1, accountId);
+                deleteStmt.setTimestamp(2, cutoff);
+                if (deleteStmt.executeUpdate() != archived) {
+                    throw new SQLException("Archived and deleted row counts differ");
+                }
+
+                recomputeClosingBalances(conn, accountId);
+                conn.commit();
+                return archived;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error closing periods: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Get the closed periods of one account, oldest first
+    public static List<PeriodSummary> getPeriodSummaries(int accountId) {
+        List<PeriodSummary> summaries = new ArrayList<>();
+        String query = "SELECT period, currency, income, expenses, transfers_net, row_count, closing_balance "
+                + "FROM period_summaries WHERE account_id = ? ORDER BY period, currency";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setInt(1, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(new PeriodSummary(accountId, YearMonth.parse(rs.getString(1)), rs.getString(2),
+                            rs.getDouble(3), rs.getDouble(4), rs.getDouble(5), rs.getInt(6), rs.getDouble(7)));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving period summaries: " + e.getMessage());
+        }
+
+        return summaries;
+    }
+
+    // The open period of an account collapsed by MySQL into one row per day,
+    // currency, direction and transfer/other, dated at noon of that day. Feeding
+    // these to FxRates.totals gives the account totals without pulling every row
+    // over JDBC. Returns null on error.
+    public static List<Transaction> getDailyTotals(int accountId) {
+        List<Transaction> totals = new ArrayList<>();
+        String query = "SELECT CAST(date_created AS DATE), currency, is_income, "
+                + "SUM(CASE WHEN category = ? THEN amount ELSE 0 END), "
+                + "SUM(CASE WHEN category = ? THEN 0 ELSE amount END) "
+                + "FROM transactions WHERE account_id = ? "
+                + "GROUP BY CAST(date_created AS DATE), currency, is_income";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setString(1, TRANSFER_CATEGORY);
+            pstmt.setString(2, TRANSFER_CATEGORY);
+            pstmt.setInt(3, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ZoneId zone = ZoneId.systemDefault();
+                while (rs.next()) {
+                    long noon = rs.getDate(1).toLocalDate().atTime(LocalTime.NOON).atZone(zone).toInstant().toEpochMilli();
+                    String currency = rs.getString(2);
+                    boolean isIncome = rs.getBoolean(3);
+                    long transferCents = rs.getBigDecimal(4).movePointRight(2).longValue();
+                    long otherCents = rs.getBigDecimal(5).movePointRight(2).longValue();
+                    if (transferCents != 0) {
+                        totals.add(new Transaction(0, accountId, transferCents, currency, "", TRANSFER_CATEGORY, isIncome, noon));
+                    }
+                    if (otherCents != 0) {
+                        totals.add(new Transaction(0, accountId, otherCents, currency, "", "", isIncome, noon));
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error calculating daily totals: " + e.getMessage());
+            return null;
+        }
+
+        return totals;
+    }
+
+    // Get one page of an account's transactions in [from, to), newest first, starting
+    // after the given row (null for the first page). Keyset paging keeps every page an
+    // index range scan however deep the export goes. Closed periods are read from the
+    // archive on demand, so callers do not need to know what was closed.
+    // Returns null on error.
+    public static List<Transaction> getTransactions(int accountId, long fromMillis, long toMillis,
+                                                    Transaction after, int limit) {
+        List<Transaction> transactions = new ArrayList<>();
+        String columns = "id, account_id, amount, currency, description, category, is_income, date_created";
+        String range = "WHERE account_id = ? AND date_created >= ? AND date_created < ? "
+                + "AND (date_created < ? OR (date_created = ? AND id < ?)) ";
+        String query = "SELECT " + columns + " FROM transactions " + range
+                + "UNION ALL SELECT " + columns + " FROM transactions_archive " + range
+                + "ORDER BY date_created DESC, id DESC LIMIT ?";
+        Timestamp before = new Timestamp(after == null ? toMillis : after.getDateCreated());
+        int beforeId = after == null ? Integer.MAX_VALUE : after.getId();
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            for (int offset = 0; offset <= 6; offset += 6) {
+                pstmt.setInt(offset + 1, accountId);
+                pstmt.setTimestamp(offset + 2, new Timestamp(fromMillis));
+                pstmt.setTimestamp(offset + 3, new Timestamp(toMillis));
+                pstmt.setTimestamp(offset + 4, before);
+                pstmt.setTimestamp(offset + 5, before);
+                pstmt.setInt(offset + 6, beforeId);
+            }
+            pstmt.setInt(13, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                TransactionRowMapper mapper = new TransactionRowMapper(rs);
+                while (rs.next()) {
+                    transactions.add(mapper.map(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving transactions: " + e.getMessage());
+            return null;
+        }
+
+        return transactions;
+    }
+
+    // Closing balances run per currency; amounts in different currencies are never added
+    private static void recomputeClosingBalances(PooledConnection conn, int accountId) throws SQLException {
+        PreparedStatement select = conn.prepare(
+                "SELECT currency, period, income, expenses, transfers_net FROM period_summaries "
+                + "WHERE account_id = ? ORDER BY currency, period");
+        PreparedStatement update = conn.prepare(
+                "UPDATE period_summaries SET closing_balance = ? WHERE account_id = ? AND period = ? AND currency = ?");
+
+        select.setInt(1, accountId);
+        String currency = null;
+        BigDecimal running = BigDecimal.ZERO;
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                if (!rs.getString(1).equals(currency)) {
+                    currency = rs.getString(1);
+                    running = BigDecimal.ZERO;
+                }
+                running = running.add(rs.getBigDecimal(3)).subtract(rs.getBigDecimal(4)).add(rs.getBigDecimal(5));
+                update.setBigDecimal(1, running);
+                update.setInt(2, accountId);
+                update.setString(3, rs.getString(2));
+                update.setString(4, currency);
+                update.addBatch();
+            }
+        }
+        update.executeBatch();
+    }
+
+    // Create the recurring rules table next to transactions if it is missing
+    public static boolean ensureRecurringTable() {
+        String query = "CREATE TABLE IF NOT EXISTS recurring_rules ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "account_id INT NOT NULL DEFAULT " + DEFAULT_ACCOUNT_ID + ", "
+                + "amount DECIMAL(12,2) NOT NULL, "
+                + "description VARCHAR(255) NOT NULL, "
+                + "category VARCHAR(100) NOT NULL, "
+                + "is_income BOOLEAN NOT NULL, "
+                + "frequency VARCHAR(10) NOT NULL, "
+                + "starts_at TIMESTAMP NOT NULL, "
+                + "posted_count INT NOT NULL DEFAULT 0, "
+                + "next_run TIMESTAMP NOT NULL, "
+                + "active BOOLEAN NOT NULL DEFAULT TRUE, "
+                + "currency CHAR(3) NOT NULL DEFAULT '" + DEFAULT_CURRENCY + "', "
+                + "INDEX idx_recurring_due (active, next_run))";
+
+        try (PooledConnection conn = ConnectionPool.acquire();
+             Statement stmt = conn.getConnection().createStatement()) {
+
+            stmt.execute(query);
+            addColumnIfMissing(conn.getConnection(), "recurring_rules", "account_id", "INT NOT NULL DEFAULT " + DEFAULT_ACCOUNT_ID);
+            addColumnIfMissing(conn.getConnection(), "recurring_rules", "currency", "CHAR(3) NOT NULL DEFAULT '" + DEFAULT_CURRENCY + "'");
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error creating recurring rules table: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Insert a new recurring rule, returns the generated id or -1
+    public static int insertRecurringRule(RecurringRule rule) {
+        String query = "INSERT INTO recurring_rules (account_id, amount, description, category, is_income, frequency, starts_at, posted_count, next_run, currency) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepareWithKeys(query);
+
+            pstmt.setInt(1, rule.getAccountId());
+            pstmt.setBigDecimal(2, BigDecimal.valueOf(rule.getAmountCents(), 2));
+            pstmt.setString(3, rule.getDescription());
+            pstmt.setString(4, rule.getCategory());
+            pstmt.setBoolean(5, rule.isIncome());
+            pstmt.setString(6, rule.getFrequency().name());
+            pstmt.setTimestamp(7, new Timestamp(rule.getStartsAt()));
+            pstmt.setInt(8, rule.getPostedCount());
+            pstmt.setTimestamp(9, new Timestamp(rule.getNextRun()));
+            pstmt.setString(10, rule.getCurrency());
+            pstmt.executeUpdate();
+
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : -1;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error inserting recurring rule: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Get all active recurring rules on accounts owned by a user, or null on error
+    public static List<RecurringRule> getActiveRecurringRules(String userName) {
+        List<RecurringRule> rules = new ArrayList<>();
+        String query = "SELECT r.id, r.account_id, r.amount, r.description, r.category, r.is_income, r.frequency, r.starts_at, r.posted_count, r.currency "
+                + "FROM recurring_rules r JOIN accounts a ON a.id = r.account_id "
+                + "WHERE r.active = true AND a.user_name = ?";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rules.add(new RecurringRule(
+                        rs.getInt(1),
+                        rs.getInt(2),
+                        rs.getBigDecimal(3).movePointRight(2).longValueExact(),
+                        rs.getString(10),
+                        rs.getString(4),
+                        rs.getString(5),
+                        rs.getBoolean(6),
+                        RecurringRule.Frequency.valueOf(rs.getString(7)),
+                        rs.getTimestamp(8).getTime(),
+                        rs.getInt(9)
+                    ));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving recurring rules: " + e.getMessage());
+            return null;
+        }
+
+        return rules;
+    }
+
+    // Insert due postings and advance their rules in a single database transaction,
+    // so a crash can never post a period twice or skip one. postings.get(i) holds
+    // the rows of rules.get(i). A rule only advances from the count it was read
+    // with: when another desktop has posted it meanwhile, its rows are left out.
+    // Returns which rules were posted, or null on error.
+    public static boolean[] postRecurring(List<RecurringRule> rules, int[] postedCounts, List<List<Transaction>> postings) {
+        String advance = "UPDATE recurring_rules SET posted_count = ?, next_run = ? WHERE id = ? AND posted_count = ?";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            conn.setAutoCommit(false);
+
+            try {
+                PreparedStatement advanceStmt = conn.prepare(advance);
+
+                // Advancing first locks each rule row until commit, so a second
+                // desktop waits here and then finds the count already moved
+                boolean[] posted = new boolean[rules.size()];
+                List<Transaction> rows = new ArrayList<>();
+                for (int i = 0; i < rules.size(); i++) {
+                    RecurringRule rule = rules.get(i);
+                    advanceStmt.setInt(1, postedCounts[i]);
+                    advanceStmt.setTimestamp(2, new Timestamp(rule.occurrenceAt(postedCounts[i])));
+                    advanceStmt.setInt(3, rule.getId());
+                    advanceStmt.setInt(4, rule.getPostedCount());
+                    posted[i] = advanceStmt.executeUpdate() == 1;
+                    if (posted[i]) {
+                        rows.addAll(postings.get(i));
+                    }
+                }
+                insertBatch(conn, rows);
+
+                conn.commit();
+                return posted;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error posting recurring transactions: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Insert many transactions (e.g. imported statement lines) in one database
+    // transaction; either all of them are posted or none
+    public static boolean insertTransactions(List<Transaction> transactions) {
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            conn.setAutoCommit(false);
+
+            try {
+                insertBatch(conn, transactions);
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error inserting transactions: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Batched insert on the caller's connection and database transaction
+    private static void insertBatch(PooledConnection conn, List<Transaction> transactions) throws SQLException {
+        String insert = "INSERT INTO transactions (account_id, amount, currency, description, category, is_income, date_created) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        PreparedStatement insertStmt = conn.prepare(insert);
+
+        int pending = 0;
+        for (Transaction t : transactions) {
+            insertStmt.setInt(1, t.getAccountId());
+            insertStmt.setBigDecimal(2, BigDecimal.valueOf(t.getAmountCents(), 2));
+            insertStmt.setString(3, t.getCurrency());
+            insertStmt.setString(4, t.getDescription());
+            insertStmt.setString(5, t.getCategory());
+            insertStmt.setBoolean(6, t.isIncome());
+            insertStmt.setTimestamp(7, new Timestamp(t.getDateCreated()));
+            insertStmt.addBatch();
+            if (++pending % BATCH_SIZE == 0) {
+                insertStmt.executeBatch();
+            }
+        }
+        insertStmt.executeBatch();
+        applyBalanceDeltas(conn, balanceDeltas(transactions, 1));
+    }
+
+    // Create the per-account, per-category monthly budgets table if it is missing
+    public static boolean ensureBudgetTable() {
+        String query = "CREATE TABLE IF NOT EXISTS budgets ("
+                + "account_id INT NOT NULL DEFAULT " + DEFAULT_ACCOUNT_ID + ", "
+                + "category VARCHAR(100) NOT NULL, "
+                + "monthly_limit DECIMAL(12,2) NOT NULL, "
+                + "PRIMARY KEY (account_id, category))";
+
+        try (PooledConnection conn = ConnectionPool.acquire();
+             Statement stmt = conn.getConnection().createStatement()) {
+
+            stmt.execute(query);
+            // Budgets from before accounts existed belong to the account that
+            // adopted the old rows, and are re-keyed per account
+            if (addColumnIfMissing(conn.getConnection(), "budgets", "account_id", "INT NOT NULL DEFAULT " + DEFAULT_ACCOUNT_ID)) {
+                stmt.execute("ALTER TABLE budgets DROP PRIMARY KEY");
+                stmt.execute("ALTER TABLE budgets ADD PRIMARY KEY (account_id, category)");
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error creating budgets table: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Get the monthly budget limits of one of the user's accounts, keyed by category
+    public static Map<String, Double> getBudgets(String userName, int accountId) {
+        Map<String, Double> budgets = new HashMap<>();
+        String query = "SELECT b.category, b.monthly_limit FROM budgets b JOIN accounts a ON a.id = b.account_id "
+                + "WHERE a.user_name = ? AND b.account_id = ?";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setString(1, userName);
+            pstmt.setInt(2, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    budgets.put(rs.getString(1), rs.getDouble(2));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving budgets: " + e.getMessage());
+        }
+
+        return budgets;
+    }
+
+    // Insert or update the monthly budget of a category on one account
+    public static boolean saveBudget(int accountId, String category, double monthlyLimit) {
+        String query = "INSERT INTO budgets (account_id, category, monthly_limit) VALUES (?, ?, ?) AS new "
+                + "ON DUPLICATE KEY UPDATE monthly_limit = new.monthly_limit";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            PreparedStatement pstmt = conn.prepare(query);
+            pstmt.setInt(1, accountId);
+            pstmt.setString(2, category);
+            pstmt.setDouble(3, monthlyLimit);
+            return pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error saving budget: " + e.getMessage());
+            return false;
         }
-        
-        return 0.0;
     }
 
     // Test database connection
     public static boolean testConnection() {
-        try (Connection conn = getConnection()) {
-            return conn != null && !conn.isClosed();
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            return conn.getConnection().isValid(5);
         } catch (SQLException e) {
             System.err.println("Database connection failed: " + e.getMessage());
             return false;
         }
     }
 
-    // Delete a transaction
+    // Delete a transaction and take it back out of the account's cached balance
     public static boolean deleteTransaction(int id) {
+        String select = "SELECT id, account_id, amount, currency, description, category, is_income, date_created "
+                + "FROM transactions WHERE id = ? FOR UPDATE";
         String query = "DELETE FROM transactions WHERE id = ?";
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setInt(1, id);
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            conn.setAutoCommit(false);
+
+            try {
+                PreparedStatement selectStmt = conn.prepare(select);
+                selectStmt.setInt(1, id);
+                List<Transaction> rows = new ArrayList<>();
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    TransactionRowMapper mapper = new TransactionRowMapper(rs);
+                    while (rs.next()) {
+                        rows.add(mapper.map(rs));
+                    }
+                }
+
+                PreparedStatement pstmt = conn.prepare(query);
+                pstmt.setInt(1, id);
+                int rowsAffected = pstmt.executeUpdate();
+                applyBalanceDeltas(conn, balanceDeltas(rows, -1));
+
+                conn.commit();
+                return rowsAffected > 0;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
             
         } catch (SQLException e) {
             System.err.println("Error deleting transaction: " + e.getMessage());
             return false;
         }
     }
+
+    // Delete duplicate rows found by reconciliation in one database transaction.
+    // Rows already gone (deleted elsewhere, archived by a period close) are skipped,
+    // so the count of rows really deleted is returned, or -1 on error.
+    public static int deleteTransactions(List<Transaction> transactions) {
+        String query = "DELETE FROM transactions WHERE id = ?";
+
+        try (PooledConnection conn = ConnectionPool.acquire()) {
+            conn.setAutoCommit(false);
+
+            try {
+                PreparedStatement pstmt = conn.prepare(query);
+
+                List<Transaction> batch = new ArrayList<>();
+                List<Transaction> deleted = new ArrayList<>();
+                for (Transaction t : transactions) {
+                    pstmt.setInt(1, t.getId());
+                    pstmt.addBatch();
+                    batch.add(t);
+                    if (batch.size() == BATCH_SIZE) {
+                        collectDeleted(pstmt.executeBatch(), batch, deleted);
+                    }
+                }
+                collectDeleted(pstmt.executeBatch(), batch, deleted);
+                applyBalanceDeltas(conn, balanceDeltas(deleted, -1));
+                conn.commit();
+                return deleted.size();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting transactions: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Keep the rows of a batch the driver reports as deleted; SUCCESS_NO_INFO
+    // counts as deleted, since a delete by primary key affects at most one row
+    private static void collectDeleted(int[] updateCounts, List<Transaction> batch, List<Transaction> deleted) {
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 1 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                deleted.add(batch.get(i));
+            }
+        }
+        batch.clear();
+    }
 }
@@ -3,11 +3,27 @@ import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.plaf.basic.BasicScrollBarUI;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class FinanceTracker extends JFrame {
 
@@ -21,25 +37,52 @@ public class FinanceTracker extends JFrame {
     private static final Color TEXT_PRIMARY = new Color(120, 120, 120);
     private static final Color TEXT_SECONDARY = new Color(142, 142, 147);
     private static final Color BORDER_COLOR = new Color(44, 44, 46);
+    private static final BasicStroke BORDER_STROKE = new BasicStroke(2f);
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
 
 
     private JLabel balanceLabel;
     private JLabel incomeLabel;
     private JLabel expenseLabel;
+    private JLabel budgetLabel;
+    private JLabel budgetDetailLabel;
     private JTextField amountField;
     private JTextField descriptionField;
     private JTextArea transactionArea;
+    private TrendsChartPanel trendsChart;
     private JComboBox<String> categoryCombo;
+    private JComboBox<String> currencyCombo;
+    private JComboBox<Account> accountCombo;
+    private JButton newAccountBtn;
     private JButton addIncomeBtn;
     private JButton addExpenseBtn;
     private JButton clearBtn;
-
-    private double balance = 0.0;
-    private double totalIncome = 0.0;
-    private double totalExpenses = 0.0;
+    private JButton recurringBtn;
+    private JButton budgetBtn;
+    private JButton transferBtn;
+    private JButton closePeriodBtn;
+    private JButton duplicatesBtn;
+    private JButton importBtn;
+
+    // Shared with the loader threads; only ever replaced as a whole snapshot
+    private final LedgerState ledger = new LedgerState(DatabaseConnection.DEFAULT_ACCOUNT_ID);
+    private final ExecutorService ledgerExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ledger-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long chartedVersion = -1;
+    private long budgetedVersion = -1;
     
-    private List<Transaction> transactions = new ArrayList<>();
     private DecimalFormat df = new DecimalFormat("#,##0.00");
+    private RecurringScheduler recurringScheduler;
+    private RefreshScheduler refreshScheduler;
+    private final String userName = System.getProperty("finance.user", System.getProperty("user.name"));
+    private volatile int currentAccountId = DatabaseConnection.DEFAULT_ACCOUNT_ID;
+    private final FxRates fx = FxRates.load();
+    private final BudgetTracker budgetTracker = new BudgetTracker(fx);
+    private final LedgerLoader ledgerLoader = new LedgerLoader(fx);
 
   
     public FinanceTracker() {
@@ -50,63 +93,478 @@ public class FinanceTracker extends JFrame {
             "Database Error", 
             JOptionPane.ERROR_MESSAGE);
     }
+    DatabaseConnection.ensureAccountSchema(userName);
+    DatabaseConnection.ensureCurrencySchema();
+    DatabaseConnection.ensureArchiveSchema();
+    DatabaseConnection.ensureBalanceSchema();
     
     initializeGUI();
+    loadAccounts();
     setupEventHandlers();
-    loadDataFromDatabase(); // Replace addSampleData()
-    startAnimations();
+    int accountId = currentAccountId;
+    loadDataFromDatabase().thenRun(() -> loadBudgets(accountId));
+    startAutoRefresh();
+    startRecurringScheduler();
 }
     private void addTransaction(boolean isIncome) {
-    try {
-        String amountText = amountField.getText().trim();
+        Long validAmount = readFormAmount();
+        if (validAmount == null) {
+            return;
+        }
+        long amount = validAmount;
         String description = descriptionField.getText().trim();
         String category = (String) categoryCombo.getSelectedItem();
+        String currency = (String) currencyCombo.getSelectedItem();
+
+        // Insert into database
+        boolean success = DatabaseConnection.insertTransaction(currentAccountId, amount, currency, description, category, isIncome);
+        
+        if (success) {
+            
+            // Budget progress and alerts follow once the new row is loaded
+            loadDataFromDatabase();
+            clearForm();
+
+            String message = isIncome ?
+                    String.format("Added income of %s", money(amount, currency)) :
+                    String.format("Recorded expense of %s", money(amount, currency));
+
+            showTemporaryMessage(message);
+        } else {
+            showError("Failed to save transaction to database!", "Database Error");
+        }
+    }
+
+    // Validates the amount and description fields and returns the amount in cents,
+    // or null after showing an error
+    private Long readFormAmount() {
+        String amountText = amountField.getText().trim();
+        String description = descriptionField.getText().trim();
 
         if (amountText.isEmpty() || amountText.equals("0.00")) {
             showError("Please enter a valid amount!", "Amount Required");
             amountField.requestFocus();
-            return;
+            return null;
         }
 
         if (description.isEmpty() || description.equals("Enter description...")) {
             showError("Please provide a description!", "Description Required");
             descriptionField.requestFocus();
+            return null;
+        }
+
+        try {
+            long amount = Transaction.toCents(new BigDecimal(amountText));
+
+            if (amount <= 0) {
+                showError("Amount must be greater than 0!", "Invalid Amount");
+                return null;
+            }
+            return amount;
+
+        } catch (NumberFormatException | ArithmeticException ex) {
+            showError("Please enter a valid number! 🔢", "Invalid Format");
+            amountField.requestFocus();
+            return null;
+        }
+    }
+
+    private void addRecurringRule() {
+        Long amount = readFormAmount();
+        if (amount == null) {
             return;
         }
 
-        double amount = Double.parseDouble(amountText);
+        String[] types = {"Income", "Expense"};
+        int type = JOptionPane.showOptionDialog(this, "Is this a recurring income or expense?",
+                "Recurring Transaction", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE,
+                null, types, types[1]);
+        if (type < 0) {
+            return;
+        }
 
-        if (amount <= 0) {
-            showError("Amount must be greater than 0!", "Invalid Amount");
+        RecurringRule.Frequency frequency = (RecurringRule.Frequency) JOptionPane.showInputDialog(this,
+                "How often should it be posted?", "Recurring Transaction", JOptionPane.QUESTION_MESSAGE,
+                null, RecurringRule.Frequency.values(), RecurringRule.Frequency.MONTHLY);
+        if (frequency == null) {
             return;
         }
 
-        // Insert into database
-        boolean success = DatabaseConnection.insertTransaction(amount, description, category, isIncome);
-        
-        if (success) {
-            
+        RecurringRule rule = new RecurringRule(0, currentAccountId, amount, (String) currencyCombo.getSelectedItem(),
+                descriptionField.getText().trim(),
+                (String) categoryCombo.getSelectedItem(), type == 0, frequency, System.currentTimeMillis(), 0);
+
+        int id = DatabaseConnection.insertRecurringRule(rule);
+        if (id < 0) {
+            showError("Failed to save recurring transaction to database!", "Database Error");
+            return;
+        }
+
+        recurringScheduler.addRule(new RecurringRule(id, rule.getAccountId(), rule.getAmountCents(), rule.getCurrency(), rule.getDescription(),
+                rule.getCategory(), rule.isIncome(), frequency, rule.getStartsAt(), 0));
+        clearForm();
+        showTemporaryMessage("Scheduled " + frequency.name().toLowerCase() + " " + types[type].toLowerCase());
+    }
+
+    private void startRecurringScheduler() {
+        recurringScheduler = new RecurringScheduler(userName, postings -> SwingUtilities.invokeLater(() -> {
+            int posted = 0;
+            for (Transaction t : postings) {
+                if (t.getAccountId() == currentAccountId) {
+                    posted++;
+                }
+            }
+            if (posted == 0) {
+                return;
+            }
+            // Budgets count the postings when the reload brings them in
+            loadDataFromDatabase();
+            showTemporaryMessage(String.format("Posted %d recurring transaction%s",
+                    posted, posted == 1 ? "" : "s"));
+        }));
+        recurringScheduler.start();
+    }
+
+    private void loadAccounts() {
+        List<Account> accounts = DatabaseConnection.getAccounts(userName);
+        if (accounts.isEmpty() && DatabaseConnection.createAccount(userName, "Cash") > 0) {
+            accounts = DatabaseConnection.getAccounts(userName);
+        }
+
+        accountCombo.removeAllItems();
+        for (Account account : accounts) {
+            accountCombo.addItem(account);
+        }
+        if (!accounts.isEmpty()) {
+            currentAccountId = accounts.get(0).getId();
+        }
+    }
+
+    private void switchAccount() {
+        Account account = (Account) accountCombo.getSelectedItem();
+        if (account == null || account.getId() == currentAccountId) {
+            return;
+        }
+        currentAccountId = account.getId();
+        budgetTracker.setLimits(new HashMap<>());
+        loadDataFromDatabase().thenRun(() -> loadBudgets(account.getId()));
+    }
+
+    private void addAccount() {
+        String name = JOptionPane.showInputDialog(this, "Name of the new account (e.g. M-Pesa, Bank):",
+                "New Account", JOptionPane.QUESTION_MESSAGE);
+        if (name == null || name.trim().isEmpty()) {
+            return;
+        }
+
+        int id = DatabaseConnection.createAccount(userName, name.trim());
+        if (id < 0) {
+            showError("Failed to create account! Account names must be unique.", "Database Error");
+            return;
+        }
+
+        Account account = new Account(id, userName, name.trim());
+        accountCombo.addItem(account);
+        accountCombo.setSelectedItem(account);
+    }
+
+    private void transferBetweenAccounts() {
+        Long amount = readFormAmount();
+        if (amount == null) {
+            return;
+        }
+
+        Account from = (Account) accountCombo.getSelectedItem();
+        List<Account> targets = new ArrayList<>();
+        for (int i = 0; i < accountCombo.getItemCount(); i++) {
+            if (accountCombo.getItemAt(i).getId() != currentAccountId) {
+                targets.add(accountCombo.getItemAt(i));
+            }
+        }
+        if (from == null || targets.isEmpty()) {
+            showError("Create another account to transfer to first!", "No Target Account");
+            return;
+        }
+
+        String currency = (String) currencyCombo.getSelectedItem();
+        Account to = (Account) JOptionPane.showInputDialog(this,
+                String.format("Transfer %s from %s to:", money(amount, currency), from.getName()),
+                "Transfer", JOptionPane.QUESTION_MESSAGE, null, targets.toArray(), targets.get(0));
+        if (to == null) {
+            return;
+        }
+
+        if (DatabaseConnection.transfer(from.getId(), to.getId(), amount, currency, descriptionField.getText().trim())) {
             loadDataFromDatabase();
             clearForm();
+            showTemporaryMessage(String.format("Moved %s to %s", money(amount, currency), to.getName()));
+        } else {
+            showError("Failed to record transfer in database!", "Database Error");
+        }
+    }
 
-            String message = isIncome ?
-                    String.format("Added income of KSh %s", df.format(amount)) :
-                    String.format("Recorded expense of KSh %s", df.format(amount));
+    private void closePeriod() {
+        // Only finished months can be closed; the current month always stays open
+        YearMonth[] months = new YearMonth[12];
+        for (int i = 0; i < months.length; i++) {
+            months[i] = YearMonth.now().minusMonths(i);
+        }
 
-            showTemporaryMessage(message);
+        YearMonth firstOpen = (YearMonth) JOptionPane.showInputDialog(this,
+                "Archive every transaction before the start of:", "Close Period",
+                JOptionPane.QUESTION_MESSAGE, null, months, months[0]);
+        if (firstOpen == null) {
+            return;
+        }
+
+        int archived = DatabaseConnection.closePeriodsBefore(currentAccountId, firstOpen);
+        if (archived < 0) {
+            showError("Failed to close period in database!", "Database Error");
+            return;
+        }
+
+        loadDataFromDatabase();
+        showTemporaryMessage(String.format("Archived %d transaction%s before %s",
+                archived, archived == 1 ? "" : "s", firstOpen));
+    }
+
+    // Matching runs on the loader thread so large ledgers don't freeze the window
+    private void findDuplicates() {
+        LedgerSnapshot snapshot = ledger.current();
+        duplicatesBtn.setEnabled(false);
+        CompletableFuture.supplyAsync(() -> new Reconciler(snapshot.getTransactions()).findDuplicates(), ledgerExecutor)
+                .whenComplete((matches, error) -> SwingUtilities.invokeLater(() -> {
+                    duplicatesBtn.setEnabled(true);
+                    if (error != null) {
+                        showError("Duplicate search failed: " + error.getMessage(), "Error");
+                    } else if (matches.isEmpty()) {
+                        showTemporaryMessage("No duplicate transactions found");
+                    } else {
+                        mergeDuplicates(matches);
+                    }
+                }));
+    }
+
+    private void mergeDuplicates(List<Reconciler.Match> matches) {
+        // Exact copies are merged by default; near matches need a tick
+        boolean[] selected = new boolean[matches.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = matches.get(i).getType() == Reconciler.MatchType.EXACT;
+        }
+        if (!chooseMatches("Merge Duplicates", "Delete", matches, selected)) {
+            return;
+        }
+
+        List<Transaction> copies = new ArrayList<>();
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                copies.add(matches.get(i).getDuplicate());
+            }
+        }
+        if (copies.isEmpty()) {
+            return;
+        }
+        int deleted = DatabaseConnection.deleteTransactions(copies);
+        if (deleted < 0) {
+            showError("Failed to delete duplicates from database!", "Database Error");
+            return;
+        }
+
+        loadDataFromDatabase();
+        // Rows removed elsewhere since the scan are skipped rather than counted
+        String skipped = deleted < copies.size() ? String.format(" (%d already gone)", copies.size() - deleted) : "";
+        showTemporaryMessage(String.format("Merged %d duplicate%s%s", deleted, deleted == 1 ? "" : "s", skipped));
+    }
+
+    // Statement lines are read in the selected currency and matched against the
+    // open period; lines already in the ledger are left unticked
+    private void importStatement() {
+        LedgerSnapshot snapshot = ledger.current();
+        if (snapshot.getAccountId() != currentAccountId) {
+            showError("The account is still loading, please try again.", "Import Statement");
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Statement (date, description, amount)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        String currency = (String) currencyCombo.getSelectedItem();
+
+        importBtn.setEnabled(false);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                List<Transaction> lines = Reconciler.readStatement(file, snapshot.getAccountId(), currency, "🎯 Other");
+                return new Reconciler(snapshot.getTransactions()).matchImported(lines);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, ledgerExecutor).whenComplete((matches, error) -> SwingUtilities.invokeLater(() -> {
+            importBtn.setEnabled(true);
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                showError("Could not read statement: " + cause.getMessage(), "Import Statement");
+            } else if (matches.isEmpty()) {
+                showError("No transactions found in " + file.getFileName(), "Import Statement");
+            } else {
+                importLines(matches);
+            }
+        }));
+    }
+
+    private void importLines(List<Reconciler.Match> matches) {
+        boolean[] selected = new boolean[matches.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = matches.get(i).isNew();
+        }
+        if (!chooseMatches("Import Statement", "Import", matches, selected)) {
+            return;
+        }
+
+        List<Transaction> lines = new ArrayList<>();
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                lines.add(matches.get(i).getDuplicate());
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        if (!DatabaseConnection.insertTransactions(lines)) {
+            showError("Failed to import statement into database!", "Database Error");
+            return;
+        }
+
+        loadDataFromDatabase();
+        showTemporaryMessage(String.format("Imported %d of %d line%s",
+                lines.size(), matches.size(), matches.size() == 1 ? "" : "s"));
+    }
+
+    // Table of candidates with a tick box per row; the ticks are written back into
+    // selected. Returns false if the dialog was cancelled.
+    private boolean chooseMatches(String title, String action, List<Reconciler.Match> matches, boolean[] selected) {
+        String[] columns = {action, "Match", "Date", "Amount", "Description", "Already recorded as"};
+        Object[][] rows = new Object[matches.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            Reconciler.Match match = matches.get(i);
+            Transaction t = match.getDuplicate();
+            Transaction existing = match.getExisting();
+            rows[i] = new Object[] {
+                    selected[i],
+                    match.isNew() ? "New" : match.getType().toString(),
+                    DATE_FORMAT.format(Instant.ofEpochMilli(t.getDateCreated())),
+                    (t.isIncome() ? "+" : "-") + money(t.getAmountCents(), t.getCurrency()),
+                    t.getDescription(),
+                    existing == null ? "" : "#" + existing.getId() + " " + existing.getDescription()
+                            + " (" + DATE_FORMAT.format(Instant.ofEpochMilli(existing.getDateCreated())) + ")"
+            };
+        }
+
+        DefaultTableModel model = new DefaultTableModel(rows, columns) {
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return column == 0 ? Boolean.class : String.class;
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column == 0;
+            }
+        };
+        JTable table = new JTable(model);
+        table.getColumnModel().getColumn(0).setMaxWidth(70);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(860, 360));
+
+        int choice = JOptionPane.showConfirmDialog(this, scroll, title,
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return false;
+        }
+        if (table.isEditing()) {
+            table.getCellEditor().stopCellEditing();
+        }
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = (Boolean) model.getValueAt(i, 0);
+        }
+        return true;
+    }
+
+    // Runs on the loader thread once the account's ledger is published; budgets
+    // belong to one account
+    private void loadBudgets(int accountId) {
+        Map<String, Double> limits = DatabaseConnection.ensureBudgetTable()
+                ? DatabaseConnection.getBudgets(userName, accountId) : new HashMap<>();
+        SwingUtilities.invokeLater(() -> {
+            // Another account was selected meanwhile; its own load follows
+            if (accountId != currentAccountId) {
+                return;
+            }
+            budgetTracker.setLimits(limits);
+            updateBudgetDisplay();
+        });
+    }
+
+    private void setBudget() {
+        String category = (String) categoryCombo.getSelectedItem();
+        String current = budgetTracker.hasLimit(category) ? df.format(budgetTracker.getLimit(category)) : "";
+        String input = (String) JOptionPane.showInputDialog(this,
+                "Monthly budget for " + category + " (" + FxRates.symbol(fx.getBaseCurrency()) + "):", "Set Budget",
+                JOptionPane.QUESTION_MESSAGE, null, null, current);
+        if (input == null) {
+            return;
+        }
+
+        double limit;
+        try {
+            limit = Double.parseDouble(input.replace(",", "").trim());
+        } catch (NumberFormatException | ArithmeticException ex) {
+            showError("Please enter a valid number! 🔢", "Invalid Format");
+            return;
+        }
+        if (limit < 0) {
+            showError("Budget cannot be negative!", "Invalid Amount");
+            return;
+        }
+
+        if (DatabaseConnection.saveBudget(currentAccountId, category, limit)) {
+            budgetTracker.setLimit(category, limit);
+            updateBudgetDisplay();
+            showTemporaryMessage("Budget saved for " + category);
         } else {
-            showError("Failed to save transaction to database!", "Database Error");
+            showError("Failed to save budget to database!", "Database Error");
         }
+    }
 
-    } catch (NumberFormatException ex) {
-        showError("Please enter a valid number! 🔢", "Invalid Format");
-        amountField.requestFocus();
+    // Amount with its currency symbol, e.g. "KSh 1,250.00"
+    private String money(double amount, String currency) {
+        return FxRates.symbol(currency) + " " + df.format(amount);
+    }
+
+    private String money(long cents, String currency) {
+        return FxRates.symbol(currency) + " " + df.format(BigDecimal.valueOf(cents, 2));
+    }
+
+    private void showBudgetAlert(String category, BudgetTracker.Alert alert) {
+        if (alert == BudgetTracker.Alert.EXCEEDED) {
+            JOptionPane.showMessageDialog(this,
+                    String.format("You have exceeded this month's %s budget of %s!",
+                            category, money(budgetTracker.getLimit(category), fx.getBaseCurrency())),
+                    "Budget Exceeded", JOptionPane.WARNING_MESSAGE);
+        } else if (alert == BudgetTracker.Alert.WARNING) {
+            JOptionPane.showMessageDialog(this,
+                    String.format("You have used %.0f%% of this month's %s budget.",
+                            budgetTracker.getProgress(category) * 100, category),
+                    "Budget Warning", JOptionPane.WARNING_MESSAGE);
+        }
     }
-}
 
 
 private void updateTransactionDisplay() {
     StringBuilder sb = new StringBuilder();
+    List<Transaction> transactions = ledger.current().getTransactions();
 
     // Show last 10 transactions
     int displayCount = Math.min(10, transactions.size());
@@ -115,10 +573,10 @@ private void updateTransactionDisplay() {
         Transaction t = transactions.get(i);
         String type = t.isIncome() ? "INCOME" : "EXPENSE";
 
-        sb.append(String.format("%-12s | %-15s | KSh %s\n",
-                type, t.getCategory(), df.format(t.getAmount())));
+        sb.append(String.format("%-12s | %-15s | %s\n",
+                type, t.getCategory(), money(t.getAmountCents(), t.getCurrency())));
         sb.append(String.format("Description: %s\n", t.getDescription()));
-        sb.append(String.format("Date: %s\n", t.getDateCreated()));
+        sb.append(String.format("Date: %s\n", DATE_FORMAT.format(Instant.ofEpochMilli(t.getDateCreated()))));
         sb.append("───────────────────────────────────────────────\n");
     }
 
@@ -163,8 +621,18 @@ private void updateTransactionDisplay() {
         titleLabel.setForeground(TEXT_PRIMARY);
         titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
+        JPanel accountPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        accountPanel.setOpaque(false);
+        accountPanel.add(createLabel("Account:", TEXT_SECONDARY));
+        accountCombo = new JComboBox<>();
+        accountCombo.setFont(new Font("SF Pro Display", Font.PLAIN, 14));
+        accountPanel.add(accountCombo);
+        newAccountBtn = createButton("＋ New Account", ACCENT_BLUE, "Add a cash, M-Pesa or bank account");
+        accountPanel.add(newAccountBtn);
+
         headerPanel.add(titleLabel);
         headerPanel.add(Box.createVerticalStrut(8));
+        headerPanel.add(accountPanel);
 
         return headerPanel;
     }
@@ -189,26 +657,32 @@ private void updateTransactionDisplay() {
     }
 
     private JPanel createStatsPanel() {
-        JPanel statsPanel = new JPanel(new GridLayout(1, 3, 20, 0));
+        JPanel statsPanel = new JPanel(new GridLayout(1, 4, 20, 0));
         statsPanel.setBackground(DARK_BG);
         statsPanel.setBorder(new EmptyBorder(0, 0, 25, 0));
 
         // Enhanced Balance Card with trend indicator
-        JPanel balanceCard = createStatsCard("Current Balance", "KSh 0.00", ACCENT_PURPLE, "Available funds");
+        JPanel balanceCard = createStatsCard("Current Balance", money(0, fx.getBaseCurrency()), ACCENT_PURPLE, "Available funds");
         balanceLabel = getCardValueLabel(balanceCard);
 
         // Enhanced Income Card
-        JPanel incomeCard = createStatsCard("Total Income", "KSh 0.00", ACCENT_GREEN, "Money earned");
+        JPanel incomeCard = createStatsCard("Total Income", money(0, fx.getBaseCurrency()), ACCENT_GREEN, "Money earned");
         incomeLabel = getCardValueLabel(incomeCard);
 
         // Enhanced Expense Card
-        JPanel expenseCard = createStatsCard("Total Expenses", "KSh 0.00", ACCENT_RED, "Money spent");
+        JPanel expenseCard = createStatsCard("Total Expenses", money(0, fx.getBaseCurrency()), ACCENT_RED, "Money spent");
         expenseLabel = getCardValueLabel(expenseCard);
 
+        // Budget Card for the category selected in the form
+        JPanel budgetCard = createStatsCard("Monthly Budget", "No budget", ACCENT_GOLD, "Set a budget per category");
+        budgetLabel = getCardValueLabel(budgetCard);
+        budgetDetailLabel = getCardSubtitleLabel(budgetCard);
+
 
         statsPanel.add(balanceCard);
         statsPanel.add(incomeCard);
         statsPanel.add(expenseCard);
+        statsPanel.add(budgetCard);
 
         return statsPanel;
     }
@@ -224,7 +698,7 @@ private void updateTransactionDisplay() {
                 g2.fillRoundRect(0, 0, getWidth(), getHeight(), 20, 20);
 
                 g2.setColor(accentColor);
-                g2.setStroke(new BasicStroke(2f));
+                g2.setStroke(BORDER_STROKE);
                 g2.drawRoundRect(1, 1, getWidth()-3, getHeight()-3, 18, 18);
 
                 g2.dispose();
@@ -278,7 +752,7 @@ private void updateTransactionDisplay() {
                 g2.fillRoundRect(0, 0, getWidth(), getHeight(), 25, 25);
 
                 g2.setColor(ACCENT_PURPLE);
-                g2.setStroke(new BasicStroke(2f));
+                g2.setStroke(BORDER_STROKE);
                 g2.drawRoundRect(1, 1, getWidth()-3, getHeight()-3, 23, 23);
 
                 g2.dispose();
@@ -308,11 +782,17 @@ private void updateTransactionDisplay() {
         gbc.insets = new Insets(12, 0, 12, 0);
 
         gbc.gridx = 0; gbc.gridy = 0;
-        formPanel.add(createLabel("Amount (KSh):", TEXT_SECONDARY), gbc);
+        formPanel.add(createLabel("Amount:", TEXT_SECONDARY), gbc);
 
         gbc.gridy = 1;
         amountField = createTextField("0.00", "Enter amount...");
-        formPanel.add(amountField, gbc);
+        currencyCombo = createComboBox(fx.getCurrencies().toArray(new String[0]));
+        currencyCombo.setSelectedItem(fx.getBaseCurrency());
+        JPanel amountPanel = new JPanel(new BorderLayout(8, 0));
+        amountPanel.setOpaque(false);
+        amountPanel.add(amountField, BorderLayout.CENTER);
+        amountPanel.add(currencyCombo, BorderLayout.EAST);
+        formPanel.add(amountPanel, gbc);
 
 
         gbc.gridy = 2;
@@ -344,16 +824,28 @@ private void updateTransactionDisplay() {
     }
 
     private JPanel createButtonPanel() {
-        JPanel buttonPanel = new JPanel(new GridLayout(2, 2, 12, 12));
+        JPanel buttonPanel = new JPanel(new GridLayout(5, 2, 12, 12));
         buttonPanel.setOpaque(false);
 
         addIncomeBtn = createButton(" Add Income", ACCENT_GREEN, "Record money earned");
         addExpenseBtn = createButton(" Add Expense", ACCENT_RED, "Record money spent");
         clearBtn = createButton("🗑️Clear Form", TEXT_SECONDARY, "Reset all fields");
+        recurringBtn = createButton("🔁 Recurring", ACCENT_BLUE, "Post this transaction on a schedule");
+        budgetBtn = createButton("🎯 Set Budget", ACCENT_GOLD, "Set a monthly budget for the selected category");
+        transferBtn = createButton("⇄ Transfer", ACCENT_BLUE, "Move this amount to another account");
+        closePeriodBtn = createButton("📦 Close Period", TEXT_SECONDARY, "Archive finished months of this account");
+        duplicatesBtn = createButton("🔍 Duplicates", ACCENT_GOLD, "Find and merge duplicate transactions");
+        importBtn = createButton("📥 Import", ACCENT_GREEN, "Import a bank statement, skipping rows already recorded");
 
         buttonPanel.add(addIncomeBtn);
         buttonPanel.add(addExpenseBtn);
         buttonPanel.add(clearBtn);
+        buttonPanel.add(recurringBtn);
+        buttonPanel.add(budgetBtn);
+        buttonPanel.add(transferBtn);
+        buttonPanel.add(closePeriodBtn);
+        buttonPanel.add(duplicatesBtn);
+        buttonPanel.add(importBtn);
 
         return buttonPanel;
     }
@@ -369,7 +861,7 @@ private void updateTransactionDisplay() {
                 g2.fillRoundRect(0, 0, getWidth(), getHeight(), 25, 25);
 
                 g2.setColor(ACCENT_PURPLE);
-                g2.setStroke(new BasicStroke(2f));
+                g2.setStroke(BORDER_STROKE);
                 g2.drawRoundRect(1, 1, getWidth()-3, getHeight()-3, 23, 23);
 
                 g2.dispose();
@@ -414,10 +906,19 @@ private void updateTransactionDisplay() {
             }
         });
 
+        trendsChart = new TrendsChartPanel(fx, BORDER_COLOR, ACCENT_BLUE, ACCENT_RED, TEXT_SECONDARY);
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.setFont(new Font("SF Pro Display", Font.BOLD, 13));
+        tabs.setBackground(CARD_BG);
+        tabs.setForeground(TEXT_PRIMARY);
+        tabs.addTab("History", scrollPane);
+        tabs.addTab("Trends", trendsChart);
+
         JPanel contentPanel = new JPanel(new BorderLayout());
         contentPanel.setOpaque(false);
         contentPanel.setBorder(new EmptyBorder(0, 15, 20, 15));
-        contentPanel.add(scrollPane, BorderLayout.CENTER);
+        contentPanel.add(tabs, BorderLayout.CENTER);
 
         transactionPanel.add(titlePanel, BorderLayout.NORTH);
         transactionPanel.add(contentPanel, BorderLayout.CENTER);
@@ -442,6 +943,11 @@ private void updateTransactionDisplay() {
         return (JLabel) contentPanel.getComponent(2);
     }
 
+    private JLabel getCardSubtitleLabel(JPanel card) {
+        JPanel contentPanel = (JPanel) card.getComponent(0);
+        return (JLabel) contentPanel.getComponent(4);
+    }
+
     private JPanel createFooterPanel() {
         JPanel footerPanel = new JPanel(new BorderLayout());
         footerPanel.setBackground(DARK_BG);
@@ -593,6 +1099,15 @@ private void updateTransactionDisplay() {
         });
 
         clearBtn.addActionListener(e -> clearForm());
+        recurringBtn.addActionListener(e -> addRecurringRule());
+        budgetBtn.addActionListener(e -> setBudget());
+        transferBtn.addActionListener(e -> transferBetweenAccounts());
+        closePeriodBtn.addActionListener(e -> closePeriod());
+        duplicatesBtn.addActionListener(e -> findDuplicates());
+        importBtn.addActionListener(e -> importStatement());
+        accountCombo.addActionListener(e -> switchAccount());
+        newAccountBtn.addActionListener(e -> addAccount());
+        categoryCombo.addActionListener(e -> updateBudgetDisplay());
 
         amountField.addActionListener(e -> addTransaction(true));
         descriptionField.addActionListener(e -> addTransaction(true));
@@ -616,8 +1131,10 @@ private void updateTransactionDisplay() {
 
     private void updateDisplay() {
         SwingUtilities.invokeLater(() -> {
+            LedgerSnapshot snapshot = ledger.current();
+            double balance = snapshot.getBalance();
 
-            balanceLabel.setText("KSh " + df.format(balance));
+            balanceLabel.setText(money(balance, fx.getBaseCurrency()));
             if (balance > 0) {
                 balanceLabel.setForeground(ACCENT_GREEN);
             } else if (balance < 0) {
@@ -626,33 +1143,66 @@ private void updateTransactionDisplay() {
                 balanceLabel.setForeground(ACCENT_BLUE);
             }
 
-            incomeLabel.setText("KSh " + df.format(totalIncome));
-            expenseLabel.setText("KSh " + df.format(totalExpenses));
+            incomeLabel.setText(money(snapshot.getTotalIncome(), fx.getBaseCurrency()));
+            expenseLabel.setText(money(snapshot.getTotalExpenses(), fx.getBaseCurrency()));
 
 
             updateTransactionDisplay();
+            if (snapshot.getVersion() != chartedVersion) {
+                chartedVersion = snapshot.getVersion();
+                trendsChart.setTransactions(snapshot.getTransactions(), balance);
+            }
+            if (snapshot.getVersion() != budgetedVersion) {
+                updateBudgets(snapshot);
+            }
         });
     }
 
-    private void updateStatsDisplay() {
-        SwingUtilities.invokeLater(() -> {
-            balanceLabel.setText("KSh " + df.format(balance));
-            incomeLabel.setText("KSh " + df.format(totalIncome));
-            expenseLabel.setText("KSh " + df.format(totalExpenses));
-
-            if (balance > 0) {
-                balanceLabel.setForeground(ACCENT_GREEN);
-            } else if (balance < 0) {
-                balanceLabel.setForeground(ACCENT_RED);
-            } else {
-                balanceLabel.setForeground(ACCENT_BLUE);
+    // Every row reaches the budgets through a snapshot, whoever added it (this
+    // window, recurring postings, other desktops), so nothing is counted twice.
+    // A snapshot caught up from the counted one only adds its new rows.
+    private void updateBudgets(LedgerSnapshot snapshot) {
+        Map<String, BudgetTracker.Alert> alerts = new LinkedHashMap<>();
+        if (snapshot.getBaseVersion() == budgetedVersion) {
+            for (Transaction t : snapshot.getAdded()) {
+                BudgetTracker.Alert alert = budgetTracker.record(t);
+                if (alert.compareTo(alerts.getOrDefault(t.getCategory(), BudgetTracker.Alert.NONE)) > 0) {
+                    alerts.put(t.getCategory(), alert);
+                }
             }
-        });
+        } else {
+            budgetTracker.rebuild(snapshot.getTransactions());
+        }
+        budgetedVersion = snapshot.getVersion();
+        updateBudgetDisplay();
+        for (Map.Entry<String, BudgetTracker.Alert> alert : alerts.entrySet()) {
+            showBudgetAlert(alert.getKey(), alert.getValue());
+        }
     }
 
+    private void updateBudgetDisplay() {
+        String category = (String) categoryCombo.getSelectedItem();
 
+        if (!budgetTracker.hasLimit(category)) {
+            budgetLabel.setText("No budget");
+            budgetLabel.setForeground(TEXT_SECONDARY);
+            budgetDetailLabel.setText(category);
+            return;
+        }
 
-
+        double progress = budgetTracker.getProgress(category);
+        budgetLabel.setText(String.format("%.0f%%", progress * 100));
+        if (progress >= 1.0) {
+            budgetLabel.setForeground(ACCENT_RED);
+        } else if (progress >= BudgetTracker.WARNING_RATIO) {
+            budgetLabel.setForeground(ACCENT_GOLD);
+        } else {
+            budgetLabel.setForeground(ACCENT_GREEN);
+        }
+        budgetDetailLabel.setText(String.format("%s: %s of %s", category,
+                money(budgetTracker.getSpent(category, YearMonth.now()), fx.getBaseCurrency()),
+                df.format(budgetTracker.getLimit(category))));
+    }
 
     private void clearForm() {
         amountField.setText("0.00");
@@ -679,6 +1229,8 @@ private void updateTransactionDisplay() {
         boolean canAdd = hasAmount && hasDescription;
         addIncomeBtn.setEnabled(canAdd);
         addExpenseBtn.setEnabled(canAdd);
+        recurringBtn.setEnabled(canAdd);
+        transferBtn.setEnabled(canAdd);
     }
 
 
@@ -729,24 +1281,21 @@ private void updateTransactionDisplay() {
         showTemporaryMessage(message);
     }
 
-    private void addSampleData() {
-        transactions.add(new Transaction(50000, "Salary", "💼 Other", true, new Date()));
-        transactions.add(new Transaction(5000, "Lunch", "🍕 Food", false, new Date()));
-        transactions.add(new Transaction(2000, "Matatu", "🚗 Transport", false, new Date()));
-
-        totalIncome = 50000;
-        totalExpenses = 7000;
-        balance = 43000;
-
-        updateStatsDisplay();
-        updateTransactionDisplay();
-    }
+    // Reloads only when the ledger changes elsewhere, and not at all while minimized
+    private void startAutoRefresh() {
+        refreshScheduler = new RefreshScheduler(() -> currentAccountId, this::loadDataFromDatabase);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowIconified(WindowEvent e) {
+                refreshScheduler.pause();
+            }
 
-    private void startAnimations() {
-        Timer updateTimer = new Timer(60000, e -> {
-            updateDisplay();
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                refreshScheduler.resume();
+            }
         });
-        updateTimer.start();
+        refreshScheduler.start();
     }
 
 
@@ -767,36 +1316,26 @@ private void updateTransactionDisplay() {
     
 
 
-private void loadDataFromDatabase() {
-    try {
-        // Load transactions from database
-        transactions = new ArrayList<>(DatabaseConnection.getAllTransactions());
-        
-        // Calculate totals from database
-        totalIncome = DatabaseConnection.getTotalIncome();
-        totalExpenses = DatabaseConnection.getTotalExpenses();
-        balance = totalIncome - totalExpenses;
-        
-        updateStatsDisplay();
-        updateTransactionDisplay();
-        
-    } catch (Exception e) {
-        System.err.println("Error loading data from database: " + e.getMessage());
-        // Fall back to empty state
-        transactions = new ArrayList<>();
-        totalIncome = 0.0;
-        totalExpenses = 0.0;
-        balance = 0.0;
-        updateStatsDisplay();
-        updateTransactionDisplay();
-    }
+// Loads on the ledger thread and publishes one immutable snapshot; the EDT only
+// reads whole snapshots, so it can never see totals from one load and rows from another
+private CompletableFuture<LedgerSnapshot> loadDataFromDatabase() {
+    int accountId = currentAccountId;
+    return CompletableFuture.supplyAsync(() -> {
+        try {
+            // Load the selected account from its local snapshot plus the rows added since
+            return ledgerLoader.load(accountId);
+        } catch (Exception e) {
+            System.err.println("Error loading data from database: " + e.getMessage());
+            // Fall back to empty state
+            return new LedgerSnapshot(accountId, 0, 0.0, 0.0, 0.0, new ArrayList<>());
+        }
+    }, ledgerExecutor).thenApply(snapshot -> {
+        if (ledger.publish(snapshot)) {
+            updateDisplay();
+        }
+        return snapshot;
+    });
 }
 
 
-
-private void refreshData() {
-    loadDataFromDatabase();
 }
-
-
-}
\ No newline at end of file
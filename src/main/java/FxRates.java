@@ -0,0 +1,242 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Exchange rates from a local CSV file (-Dfinance.fx.file, default
+// ~/.finance-tracker/fx-rates.csv) with lines "date,currency,rate", where rate is
+// the value of one unit of the currency in shillings, e.g. "2025-01-31,USD,129.25".
+//
+// On load every currency is expanded into a dense table of factors into the base
+// currency (-Dfinance.currency.base, default KES), one entry per UTC day between
+// the first and last quoted dates. Days without a quote reuse the latest earlier
+// one, so converting a row is one array index instead of a search or map lookup.
+public final class FxRates {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    private final String baseCurrency;
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> currencies = new ArrayList<>();
+    // [currency][day - firstDay]: base currency units per unit of the currency;
+    // the extra last row is all 1.0 for currencies without rates
+    private final double[][] factors;
+    private final int unknownCode;
+    private final long firstDay;
+    private final Set<String> warned = ConcurrentHashMap.newKeySet();
+
+    private FxRates(String baseCurrency, Map<String, TreeMap<Long, Double>> quotes) {
+        this.baseCurrency = baseCurrency;
+        quotes.computeIfAbsent(DatabaseConnection.DEFAULT_CURRENCY, c -> new TreeMap<>());
+        quotes.computeIfAbsent(baseCurrency, c -> new TreeMap<>());
+
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (TreeMap<Long, Double> byDay : quotes.values()) {
+            if (!byDay.isEmpty()) {
+                first = Math.min(first, byDay.firstKey());
+                last = Math.max(last, byDay.lastKey());
+            }
+        }
+        if (first > last) {
+            first = last = 0; // no quotes at all: a single day of 1:1 factors
+        }
+        this.firstDay = first;
+        int days = (int) (last - first + 1);
+
+        double[][] shillings = new double[quotes.size()][];
+        for (Map.Entry<String, TreeMap<Long, Double>> entry : new TreeMap<>(quotes).entrySet()) {
+            int code = currencies.size();
+            codes.put(entry.getKey(), code);
+            currencies.add(entry.getKey());
+            shillings[code] = expand(entry.getKey(), entry.getValue(), first, days);
+        }
+
+        double[] base = shillings[codes.get(baseCurrency)];
+        this.unknownCode = shillings.length;
+        this.factors = new double[shillings.length + 1][days];
+        for (int c = 0; c < shillings.length; c++) {
+            for (int d = 0; d < days; d++) {
+                factors[c][d] = shillings[c][d] / base[d];
+            }
+        }
+        Arrays.fill(factors[unknownCode], 1.0);
+    }
+
+    // Forward-fills the quotes over the whole range; before the first quote the
+    // first one is used. Shillings are always 1, and a currency without quotes
+    // falls back to 1 as well, with a warning.
+    private static double[] expand(String currency, TreeMap<Long, Double> byDay, long first, int days) {
+        double[] rates = new double[days];
+        if (currency.equals(DatabaseConnection.DEFAULT_CURRENCY) || byDay.isEmpty()) {
+            if (!currency.equals(DatabaseConnection.DEFAULT_CURRENCY)) {
+                System.err.println("No exchange rates for " + currency + ", converting it 1:1");
+            }
+            Arrays.fill(rates, 1.0);
+            return rates;
+        }
+        double rate = byDay.firstEntry().getValue();
+        for (int d = 0; d < days; d++) {
+            Double quote = byDay.get(first + d);
+            if (quote != null) {
+                rate = quote;
+            }
+            rates[d] = rate;
+        }
+        return rates;
+    }
+
+    public static FxRates load() {
+        Path defaultFile = Paths.get(System.getProperty("user.home"), ".finance-tracker", "fx-rates.csv");
+        return load(Paths.get(System.getProperty("finance.fx.file", defaultFile.toString())),
+                System.getProperty("finance.currency.base", DatabaseConnection.DEFAULT_CURRENCY));
+    }
+
+    // A missing or unreadable file leaves only the base and default currencies
+    public static FxRates load(Path file, String baseCurrency) {
+        Map<String, TreeMap<Long, Double>> quotes = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("date")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    long day = LocalDate.parse(fields[0].trim()).toEpochDay();
+                    String currency = fields[1].trim().toUpperCase();
+                    double rate = Double.parseDouble(fields[2].trim());
+                    if (!(rate > 0)) {
+                        throw new NumberFormatException("rate must be positive");
+                    }
+                    quotes.computeIfAbsent(currency, c -> new TreeMap<>()).put(day, rate);
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping exchange rate line " + lineNumber + ": " + line);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // No rates file: only shillings and the base currency are known
+        } catch (IOException e) {
+            System.err.println("Error reading exchange rates: " + e.getMessage());
+        }
+        return new FxRates(baseCurrency, quotes);
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    // Every currency with rates, plus the base and default currencies, sorted
+    public List<String> getCurrencies() {
+        return new ArrayList<>(currencies);
+    }
+
+    public double toBase(Transaction t) {
+        return toBase(t.getAmount(), t.getCurrency(), t.getDateCreated());
+    }
+
+    public double toBase(double amount, String currency, long epochMillis) {
+        return amount * factor(code(currency), Math.floorDiv(epochMillis, DAY_MS));
+    }
+
+    // Income, expenses (transfers excluded from both) and balance of an account in
+    // the base currency: the open-period rows plus the closed period summaries,
+    // each summary converted at the rate of its last day.
+    // Returns {totalIncome, totalExpenses, balance}.
+    public double[] totals(List<Transaction> transactions, List<PeriodSummary> closedPeriods) {
+        int rows = transactions.size();
+        long[] cents = new long[rows];
+        int[] currencyCodes = new int[rows];
+        int[] days = new int[rows];
+        byte[] kinds = new byte[rows];
+
+        // Gather the few fields needed into primitive columns first...
+        String lastCurrency = null;
+        int lastCode = -1;
+        for (int i = 0; i < rows; i++) {
+            Transaction t = transactions.get(i);
+            if (!t.getCurrency().equals(lastCurrency)) {
+                lastCurrency = t.getCurrency();
+                lastCode = code(lastCurrency);
+            }
+            cents[i] = t.getAmountCents();
+            currencyCodes[i] = lastCode;
+            days[i] = dayIndex(Math.floorDiv(t.getDateCreated(), DAY_MS));
+            boolean transfer = DatabaseConnection.TRANSFER_CATEGORY.equals(t.getCategory());
+            kinds[i] = (byte) ((t.isIncome() ? 1 : 0) | (transfer ? 2 : 0));
+        }
+
+        // ...then convert and sum in a loop over arrays only
+        double income = 0;
+        double expenses = 0;
+        double balance = 0;
+        for (int i = 0; i < rows; i++) {
+            double amount = cents[i] * factors[currencyCodes[i]][days[i]];
+            switch (kinds[i]) {
+                case 0: expenses += amount; balance -= amount; break;
+                case 1: income += amount; balance += amount; break;
+                case 2: balance -= amount; break;
+                default: balance += amount; break;
+            }
+        }
+        income /= 100;
+        expenses /= 100;
+        balance /= 100;
+
+        for (PeriodSummary summary : closedPeriods) {
+            YearMonth period = summary.getPeriod();
+            double factor = factor(code(summary.getCurrency()), period.atEndOfMonth().toEpochDay());
+            income += summary.getIncome() * factor;
+            expenses += summary.getExpenses() * factor;
+            balance += (summary.getIncome() - summary.getExpenses() + summary.getTransfersNet()) * factor;
+        }
+
+        return new double[] {income, expenses, balance};
+    }
+
+    // Display prefix for an amount, e.g. "KSh" or "$"
+    public static String symbol(String currency) {
+        switch (currency) {
+            case "KES": return "KSh";
+            case "USD": return "$";
+            case "EUR": return "€";
+            case "GBP": return "£";
+            default: return currency;
+        }
+    }
+
+    private int code(String currency) {
+        Integer code = codes.get(currency);
+        if (code == null) {
+            if (warned.add(currency)) {
+                System.err.println("No exchange rates for " + currency + ", converting it 1:1");
+            }
+            return unknownCode;
+        }
+        return code;
+    }
+
+    private int dayIndex(long epochDay) {
+        return (int) Math.max(0, Math.min(epochDay - firstDay, factors[0].length - 1));
+    }
+
+    private double factor(int code, long epochDay) {
+        return factors[code][dayIndex(epochDay)];
+    }
+}
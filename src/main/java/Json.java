@@ -0,0 +1,187 @@
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Just enough JSON for LedgerServer: writes the few shapes the API returns and
+// reads flat request objects, so headless mode needs no extra dependency.
+public final class Json {
+
+    private Json() {
+    }
+
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // Exact two-decimal amount, never in exponent notation
+    public static String amount(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    public static String amount(double value) {
+        return amount(Transaction.toCents(value));
+    }
+
+    public static String transaction(Transaction t) {
+        return "{\"id\":" + t.getId()
+                + ",\"accountId\":" + t.getAccountId()
+                + ",\"amount\":" + amount(t.getAmountCents())
+                + ",\"currency\":" + quote(t.getCurrency())
+                + ",\"description\":" + quote(t.getDescription())
+                + ",\"category\":" + quote(t.getCategory())
+                + ",\"income\":" + t.isIncome()
+                + ",\"dateCreated\":" + t.getDateCreated() + "}";
+    }
+
+    public static String transactions(List<Transaction> transactions) {
+        StringBuilder sb = new StringBuilder(transactions.size() * 160 + 2).append('[');
+        for (int i = 0; i < transactions.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(transaction(transactions.get(i)));
+        }
+        return sb.append(']').toString();
+    }
+
+    // Parses a flat object of strings, numbers, booleans and nulls into raw string
+    // values (null stays null). Throws IllegalArgumentException on anything else.
+    public static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> values = new HashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String key = parser.string();
+                parser.expect(':');
+                values.put(key, parser.value());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return values;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("Expected '" + c + "' at position " + pos);
+            }
+        }
+
+        void end() {
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw new IllegalArgumentException("Unexpected content at position " + pos);
+            }
+        }
+
+        String value() {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == '"') {
+                return string();
+            }
+            int start = pos;
+            while (pos < text.length() && "-+.eE0123456789truefalsn".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false")) {
+                return literal;
+            }
+            try {
+                new BigDecimal(literal);
+                return literal;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unsupported value at position " + start);
+            }
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escape = text.charAt(pos++);
+                switch (escape) {
+                    case '"': case '\\': case '/': sb.append(escape); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Truncated escape at position " + pos);
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Invalid escape at position " + pos);
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid escape at position " + pos);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+    }
+}
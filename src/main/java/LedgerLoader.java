@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Loads an account's ledger from the newest local snapshot and catches up only
+// the rows MySQL added since its high-water mark. Falls back to a full load when
+// the snapshot is missing or rows were deleted behind its back. Totals are
+// computed here in the base currency rather than summed by MySQL, since rows
+// may be in different currencies.
+public class LedgerLoader {
+
+    private static final Comparator<Transaction> NEWEST_FIRST =
+            Comparator.comparingLong(Transaction::getDateCreated).reversed();
+
+    private final Path directory;
+    private final FxRates fx;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only the latest snapshot per refresh burst is worth writing
+    private final AtomicReference<LedgerSnapshot> pendingWrite = new AtomicReference<>();
+    private volatile LedgerSnapshot last;
+
+    public LedgerLoader(FxRates fx) {
+        this(Paths.get(System.getProperty("finance.snapshot.dir",
+                Paths.get(System.getProperty("user.home"), ".finance-tracker").toString())), fx);
+    }
+
+    public LedgerLoader(Path directory, FxRates fx) {
+        this.directory = directory;
+        this.fx = fx;
+    }
+
+    public LedgerSnapshot load(int accountId) {
+        LedgerSnapshot base = last;
+        if (base == null || base.getAccountId() != accountId) {
+            base = LedgerSnapshotFile.read(snapshotPath(accountId));
+        }
+
+        // Totals read from a file may use other rates or another base currency
+        LedgerSnapshot fresh = base == null ? null : catchUp(base, base == last);
+        if (fresh == null) {
+            fresh = fullLoad(accountId);
+        }
+        if (fresh == null) {
+            // Database unreachable: show the last known ledger rather than nothing
+            return base != null ? base : new LedgerSnapshot(accountId, 0, 0.0, 0.0, 0.0, new ArrayList<>());
+        }
+
+        if (base == null || base.getHighWaterMark() != fresh.getHighWaterMark() || base.size() != fresh.size()) {
+            writeInBackground(fresh);
+        }
+        last = fresh;
+        return fresh;
+    }
+
+    private LedgerSnapshot catchUp(LedgerSnapshot base, boolean totalsCurrent) {
+        List<Transaction> delta = DatabaseConnection.getTransactionsAfter(base.getAccountId(), base.getHighWaterMark());
+        long[] marker = DatabaseConnection.getLedgerMarker(base.getAccountId());
+        if (delta == null || marker == null) {
+            return null;
+        }
+
+        int highWaterMark = base.getHighWaterMark();
+        for (Transaction t : delta) {
+            highWaterMark = Math.max(highWaterMark, t.getId());
+        }
+        // Any deletion since the snapshot shows up as a count mismatch
+        if (marker[0] != base.size() + delta.size() || marker[1] != highWaterMark) {
+            return null;
+        }
+        if (delta.isEmpty() && totalsCurrent) {
+            return base;
+        }
+        if (delta.isEmpty()) {
+            return withTotals(base, highWaterMark, base.getTransactions(), delta);
+        }
+
+        List<Transaction> merged = new ArrayList<>(base.size() + delta.size());
+        for (int i = delta.size() - 1; i >= 0; i--) {
+            merged.add(delta.get(i));
+        }
+        merged.addAll(base.getTransactions());
+        // Back-dated rows (e.g. recurring catch-up) need a real merge; TimSort
+        // handles the two presorted runs in near-linear time
+        merged.sort(NEWEST_FIRST);
+
+        return withTotals(base, highWaterMark, merged, delta);
+    }
+
+    // Null when the database fails, so a broken read is never published or
+    // written over a good snapshot file as an empty ledger
+    private LedgerSnapshot fullLoad(int accountId) {
+        List<Transaction> transactions = DatabaseConnection.getAllTransactions(accountId);
+        if (transactions == null) {
+            return null;
+        }
+        int highWaterMark = 0;
+        for (Transaction t : transactions) {
+            highWaterMark = Math.max(highWaterMark, t.getId());
+        }
+        return withTotals(accountId, highWaterMark, transactions);
+    }
+
+    private LedgerSnapshot withTotals(int accountId, int highWaterMark, List<Transaction> transactions) {
+        double[] totals = fx.totals(transactions, DatabaseConnection.getPeriodSummaries(accountId));
+        return new LedgerSnapshot(accountId, highWaterMark, totals[0], totals[1], totals[2], transactions);
+    }
+
+    // Caught-up snapshot that remembers its base, so the budget tracker can count
+    // just the added rows
+    private LedgerSnapshot withTotals(LedgerSnapshot base, int highWaterMark, List<Transaction> transactions,
+                                      List<Transaction> added) {
+        double[] totals = fx.totals(transactions, DatabaseConnection.getPeriodSummaries(base.getAccountId()));
+        return new LedgerSnapshot(base.getAccountId(), highWaterMark, totals[0], totals[1], totals[2], transactions,
+                base.getVersion(), added);
+    }
+
+    private void writeInBackground(LedgerSnapshot snapshot) {
+        if (pendingWrite.getAndSet(snapshot) != null) {
+            return; // a write is already queued and will pick up this snapshot
+        }
+        writer.execute(() -> {
+            LedgerSnapshot latest = pendingWrite.getAndSet(null);
+            if (latest == null) {
+                return;
+            }
+            try {
+                LedgerSnapshotFile.write(snapshotPath(latest.getAccountId()), latest);
+            } catch (IOException e) {
+                System.err.println("Error writing ledger snapshot: " + e.getMessage());
+            }
+        });
+    }
+
+    private Path snapshotPath(int accountId) {
+        return directory.resolve("ledger-" + DatabaseConnection.databaseKey() + "-" + accountId + ".snap");
+    }
+}
@@ -0,0 +1,388 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+// Headless mode: serves the ledger over a small HTTP/JSON API using the JDK's
+// built-in server, backed by the same pooled DatabaseConnection DAO as the GUI.
+//
+//   GET  /transactions?account=1&offset=0&limit=50   newest first, paginated, archive included
+//   POST /transactions   {"accountId":1,"amount":250.00,"currency":"KES","description":"Lunch",
+//                         "category":"🍕 Food & Dining","income":false}
+//   GET  /totals?account=1   in the base currency, plus the exact balance held in each currency
+//   GET  /search?account=1&q=rent&limit=50   archive included
+//   GET  /export?account=1&from=2025-01-01&to=2025-02-01   CSV, archive included
+//   GET  /stats   connection pool and prepared statement cache counters
+//
+// Only accounts owned by -Dfinance.user (default: the OS user) are served; any
+// other account id gets 404.
+// Listens on 127.0.0.1:8080 unless -Dfinance.server.host / -Dfinance.server.port say otherwise.
+public final class LedgerServer {
+
+    private static final String HOST = System.getProperty("finance.server.host", "127.0.0.1");
+    private static final int PORT = Integer.getInteger("finance.server.port", 8080);
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int EXPORT_PAGE = 1000;
+
+    private static final FxRates fx = FxRates.load();
+
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> params, OwnedAccounts accounts) throws IOException;
+    }
+
+    // The accounts belonging to the server's user. A miss re-reads them, so an
+    // account created after startup is served without a restart.
+    private static final class OwnedAccounts {
+        private final String userName;
+        private volatile Set<Integer> ids = Set.of();
+
+        OwnedAccounts(String userName) {
+            this.userName = userName;
+        }
+
+        boolean contains(int accountId) {
+            if (ids.contains(accountId)) {
+                return true;
+            }
+            Set<Integer> fresh = new HashSet<>();
+            for (Account account : DatabaseConnection.getAccounts(userName)) {
+                fresh.add(account.getId());
+            }
+            ids = fresh;
+            return fresh.contains(accountId);
+        }
+    }
+
+    private LedgerServer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String userName = System.getProperty("finance.user", System.getProperty("user.name"));
+        if (!DatabaseConnection.testConnection()
+                || !DatabaseConnection.ensureAccountSchema(userName)
+                || !DatabaseConnection.ensureCurrencySchema()
+                || !DatabaseConnection.ensureArchiveSchema()
+                || !DatabaseConnection.ensureBalanceSchema()) {
+            System.err.println("Ledger server not started: database unavailable");
+            System.exit(1);
+        }
+
+        HttpServer server = start(HOST, PORT, userName);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1), "ledger-server-shutdown"));
+        System.out.println("Ledger server listening on http://" + HOST + ":" + server.getAddress().getPort());
+    }
+
+    // Serves only the given user's accounts; any other account id is answered 404.
+    // Port 0 picks a free port; the bound address is on the returned server
+    public static HttpServer start(String host, int port, String userName) throws IOException {
+        OwnedAccounts accounts = new OwnedAccounts(userName);
+        HttpServer server = HttpServer.create(new InetSocketAddress(host, port), 1024);
+        server.createContext("/transactions", exchange -> dispatch(exchange, accounts, "GET", LedgerServer::list, "POST", LedgerServer::add));
+        server.createContext("/totals", exchange -> dispatch(exchange, accounts, "GET", LedgerServer::totals, null, null));
+        server.createContext("/search", exchange -> dispatch(exchange, accounts, "GET", LedgerServer::search, null, null));
+        server.createContext("/export", exchange -> dispatch(exchange, accounts, "GET", LedgerServer::export, null, null));
+        server.createContext("/stats", exchange -> dispatch(exchange, accounts, "GET", LedgerServer::stats, null, null));
+        // One virtual thread per exchange: handlers block on JDBC and on the pool's
+        // semaphore, which parks a virtual thread instead of holding a platform one
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return server;
+    }
+
+    private static void dispatch(HttpExchange exchange, OwnedAccounts accounts, String method, Handler handler,
+                                 String otherMethod, Handler otherHandler) throws IOException {
+        boolean dropped = false;
+        try {
+            String requested = exchange.getRequestMethod();
+            Handler chosen = requested.equals(method) ? handler
+                    : requested.equals(otherMethod) ? otherHandler : null;
+            if (chosen == null) {
+                exchange.getResponseHeaders().set("Allow", otherMethod == null ? method : method + ", " + otherMethod);
+                sendJson(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            chosen.handle(exchange, queryParams(exchange), accounts);
+        } catch (IllegalArgumentException e) {
+            sendJson(exchange, 400, error(e.getMessage()));
+        } catch (IOException e) {
+            // Client went away or the response had to be cut short: let the server
+            // drop the connection rather than finish a partial body
+            dropped = true;
+            System.err.println("Error writing response: " + e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e.getMessage());
+            sendJson(exchange, 500, error("Internal error"));
+        } finally {
+            if (!dropped) {
+                exchange.close();
+            }
+        }
+    }
+
+    private static void list(HttpExchange exchange, Map<String, String> params, OwnedAccounts accounts) throws IOException {
+        int accountId = intParam(params, "account", DatabaseConnection.DEFAULT_ACCOUNT_ID);
+        int offset = intParam(params, "offset", 0);
+        int limit = Math.min(intParam(params, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+        if (offset < 0 || limit < 1) {
+            throw new IllegalArgumentException("offset must be >= 0 and limit >= 1");
+        }
+        if (!owned(exchange, accounts, accountId)) {
+            return;
+        }
+
+        List<Transaction> page = DatabaseConnection.getTransactionsPage(accountId, offset, limit);
+        if (page == null) {
+            sendJson(exchange, 503, error("Database unavailable"));
+            return;
+        }
+        sendJson(exchange, 200, "{\"offset\":" + offset + ",\"limit\":" + limit
+                + ",\"transactions\":" + Json.transactions(page) + "}");
+    }
+
+    private static void add(HttpExchange exchange, Map<String, String> params, OwnedAccounts accounts) throws IOException {
+        Map<String, String> body = Json.parseObject(readBody(exchange));
+        int accountId = body.containsKey("accountId")
+                ? parseInt(body.get("accountId"), "accountId") : DatabaseConnection.DEFAULT_ACCOUNT_ID;
+        String description = body.get("description");
+        String category = body.getOrDefault("category", "🎯 Other");
+        String currency = body.getOrDefault("currency", DatabaseConnection.DEFAULT_CURRENCY);
+        boolean isIncome = Boolean.parseBoolean(body.get("income"));
+        BigDecimal amount;
+        long amountCents;
+        try {
+            amount = new BigDecimal(body.get("amount"));
+            amountCents = Transaction.toCents(amount);
+        } catch (NullPointerException | NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("amount must be a number");
+        }
+        if (amount.signum() <= 0 || amount.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("amount must be positive with at most two decimals");
+        }
+        if (description == null || description.isBlank() || category == null || category.isBlank()) {
+            throw new IllegalArgumentException("description and category are required");
+        }
+        if (currency == null || !currency.matches("[A-Z]{3}")) {
+            throw new IllegalArgumentException("currency must be a three-letter code like KES");
+        }
+        if (!owned(exchange, accounts, accountId)) {
+            return;
+        }
+
+        if (DatabaseConnection.insertTransaction(accountId, amountCents, currency, description.trim(), category, isIncome)) {
+            sendJson(exchange, 201, "{\"created\":true}");
+        } else {
+            sendJson(exchange, 503, error("Transaction not saved"));
+        }
+    }
+
+    // MySQL sums per day and currency; only those sums are converted here, so a
+    // request costs the number of active days rather than the number of rows. The
+    // per-currency balances are read from the cached account_balances rows.
+    private static void totals(HttpExchange exchange, Map<String, String> params, OwnedAccounts accounts) throws IOException {
+        int accountId = intParam(params, "account", DatabaseConnection.DEFAULT_ACCOUNT_ID);
+        if (!owned(exchange, accounts, accountId)) {
+            return;
+        }
+        List<Transaction> daily = DatabaseConnection.getDailyTotals(accountId);
+        Map<String, Long> balances = DatabaseConnection.getAccountBalances(accountId);
+        if (daily == null || balances == null) {
+            sendJson(exchange, 503, error("Database unavailable"));
+            return;
+        }
+        double[] totals = fx.totals(daily, DatabaseConnection.getPeriodSummaries(accountId));
+        StringBuilder perCurrency = new StringBuilder("{");
+        for (Map.Entry<String, Long> balance : balances.entrySet()) {
+            if (perCurrency.length() > 1) {
+                perCurrency.append(',');
+            }
+            perCurrency.append(Json.quote(balance.getKey())).append(':').append(Json.amount(balance.getValue()));
+        }
+        sendJson(exchange, 200, "{\"accountId\":" + accountId
+                + ",\"currency\":" + Json.quote(fx.getBaseCurrency())
+                + ",\"income\":" + Json.amount(totals[0])
+                + ",\"expenses\":" + Json.amount(totals[1])
+                + ",\"balance\":" + Json.amount(totals[2])
+                + ",\"balances\":" + perCurrency.append('}') + "}");
+    }
+
+    private static void search(HttpExchange exchange, Map<String, String> params, OwnedAccounts accounts) throws IOException {
+        int accountId = intParam(params, "account", DatabaseConnection.DEFAULT_ACCOUNT_ID);
+        int limit = Math.min(intParam(params, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+        String text = params.get("q");
+        if (text == null || text.isBlank() || limit < 1) {
+            throw new IllegalArgumentException("q is required and limit must be >= 1");
+        }
+        if (!owned(exchange, accounts, accountId)) {
+            return;
+        }
+
+        List<Transaction> matches = DatabaseConnection.searchTransactions(accountId, text.trim(), limit);
+        if (matches == null) {
+            sendJson(exchange, 503, error("Database unavailable"));
+            return;
+        }
+        sendJson(exchange, 200, "{\"query\":" + Json.quote(text.trim())
+                + ",\"transactions\":" + Json.transactions(matches) + "}");
+    }
+
+    // Dates are local calendar days; "to" is exclusive and defaults to tomorrow
+    private static void export(HttpExchange exchange, Map<String, String> params, OwnedAccounts accounts) throws IOException {
+        int accountId = intParam(params, "account", DatabaseConnection.DEFAULT_ACCOUNT_ID);
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate from = dateParam(params, "from", LocalDate.of(1970, 1, 2));
+        LocalDate to = dateParam(params, "to", LocalDate.now().plusDays(1));
+
+        long fromMillis = from.atStartOfDay(zone).toInstant().toEpochMilli();
+        long toMillis = to.atStartOfDay(zone).toInstant().toEpochMilli();
+        if (!owned(exchange, accounts, accountId)) {
+            return;
+        }
+
+        // The first page decides the status; later pages are fetched while writing
+        List<Transaction> page = DatabaseConnection.getTransactions(accountId, fromMillis, toMillis, null, EXPORT_PAGE);
+        if (page == null) {
+            sendJson(exchange, 503, error("Database unavailable"));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+        exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=\"ledger-" + accountId + ".csv\"");
+        // Length 0 means chunked, so large exports stream instead of being buffered
+        exchange.sendResponseHeaders(200, 0);
+        // Not closed on failure: the exchange is dropped instead of finished, so a
+        // partial export is never mistaken for a complete one
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        out.write("id,date,description,category,type,amount,currency\n");
+        while (!page.isEmpty()) {
+            for (Transaction t : page) {
+                out.write(t.getId() + "," + new Timestamp(t.getDateCreated()) + ","
+                        + csv(t.getDescription()) + "," + csv(t.getCategory()) + ","
+                        + (t.isIncome() ? "income" : "expense") + "," + Json.amount(t.getAmountCents())
+                        + "," + t.getCurrency() + "\n");
+            }
+            if (page.size() < EXPORT_PAGE) {
+                break;
+            }
+            page = DatabaseConnection.getTransactions(accountId, fromMillis, toMillis,
+                    page.get(page.size() - 1), EXPORT_PAGE);
+            if (page == null) {
+                throw new IOException("Database unavailable during export of account " + accountId);
+            }
+        }
+        out.close();
+    }
+
+    // Live counters, so the statement cache hit ratio can be watched while the server runs
+    private static void stats(HttpExchange exchange, Map<String, String> params, OwnedAccounts accounts) throws IOException {
+        sendJson(exchange, 200, "{\"statementHits\":" + ConnectionPool.getStatementHits()
+                + ",\"statementMisses\":" + ConnectionPool.getStatementMisses()
+                + ",\"statementHitRatio\":" + String.format(Locale.ROOT, "%.4f", ConnectionPool.getStatementHitRatio())
+                + ",\"connectionsActive\":" + ConnectionPool.getActiveCount()
+                + ",\"connectionsIdle\":" + ConnectionPool.getIdleCount()
+                + ",\"poolSize\":" + ConnectionPool.getMaxSize() + "}");
+    }
+
+    // Other users' accounts are reported as missing rather than forbidden, so their
+    // ids cannot be probed; returns false after sending the 404
+    private static boolean owned(HttpExchange exchange, OwnedAccounts accounts, int accountId) throws IOException {
+        if (accounts.contains(accountId)) {
+            return true;
+        }
+        sendJson(exchange, 404, error("No such account"));
+        return false;
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message) + "}";
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        return value == null || value.isEmpty() ? defaultValue : parseInt(value, name);
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static LocalDate dateParam(Map<String, String> params, String name, LocalDate defaultValue) {
+        String value = params.get(name);
+        try {
+            return value == null || value.isEmpty() ? defaultValue : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a date like 2025-01-31");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The last known state of one account's ledger: its transactions (newest first),
+// totals and the highest transaction id it has seen. Instances are immutable;
+// the transaction lists must not be modified by their creator after construction.
+// A snapshot caught up from an earlier one also names that base and the rows it
+// added, so readers that already processed the base only need to look at those.
+public final class LedgerSnapshot {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version = VERSIONS.incrementAndGet();
+    private final int accountId;
+    private final int highWaterMark;
+    private final double totalIncome;
+    private final double totalExpenses;
+    private final double balance;
+    private final List<Transaction> transactions;
+    private final long baseVersion;
+    private final List<Transaction> added;
+
+    public LedgerSnapshot(int accountId, int highWaterMark, double totalIncome, double totalExpenses,
+                          double balance, List<Transaction> transactions) {
+        this(accountId, highWaterMark, totalIncome, totalExpenses, balance, transactions, 0, Collections.emptyList());
+    }
+
+    // baseVersion is 0 when the snapshot was not derived from another one
+    public LedgerSnapshot(int accountId, int highWaterMark, double totalIncome, double totalExpenses,
+                          double balance, List<Transaction> transactions, long baseVersion, List<Transaction> added) {
+        this.accountId = accountId;
+        this.highWaterMark = highWaterMark;
+        this.totalIncome = totalIncome;
+        this.totalExpenses = totalExpenses;
+        this.balance = balance;
+        this.transactions = Collections.unmodifiableList(transactions);
+        this.baseVersion = baseVersion;
+        this.added = Collections.unmodifiableList(added);
+    }
+
+    // Getters
+    public int getAccountId() { return accountId; }
+    public int getHighWaterMark() { return highWaterMark; }
+    public double getTotalIncome() { return totalIncome; }
+    public double getTotalExpenses() { return totalExpenses; }
+    public double getBalance() { return balance; }
+    public List<Transaction> getTransactions() { return transactions; }
+    public int size() { return transactions.size(); }
+    public long getBaseVersion() { return baseVersion; }
+    // Rows added on top of the base snapshot, oldest first
+    public List<Transaction> getAdded() { return added; }
+
+    // Creation order, so a slow load can never replace a newer published snapshot
+    public long getVersion() { return version; }
+}
@@ -0,0 +1,220 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Column-oriented binary snapshot of one account's ledger, read back with one bulk
+// channel read so a cold start does not have to pull every row over JDBC. The file
+// is not memory-mapped: a live mapping would stop Windows from replacing it.
+//
+// Layout (little endian):
+//   header   magic, version, accountId, highWaterMark, rowCount, dictionarySize,
+//            descriptionBytes, totalIncome, totalExpenses, balance, crc32
+//            (the CRC covers every header field before it and the whole payload)
+//   payload  dates long[rows] | amountCents long[rows] | ids int[rows] |
+//            categoryCodes int[rows] | currencyCodes int[rows] | descriptionOffsets int[rows + 1] |
+//            incomeFlags byte[rows] | dictionary (int length + UTF-8)[dictionarySize] |
+//            descriptions UTF-8 blob
+// Categories and currencies share the dictionary.
+public final class LedgerSnapshotFile {
+
+    private static final int MAGIC = 0x4654534E; // "FTSN"
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 7 * Integer.BYTES + 3 * Double.BYTES + Long.BYTES;
+    private static final int CHECKED_HEADER_SIZE = HEADER_SIZE - Long.BYTES;
+
+    private LedgerSnapshotFile() {
+    }
+
+    // Returns null when the file is missing, from another version or corrupt
+    public static LedgerSnapshot read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the whole file is in memory
+            }
+            buffer.flip();
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            int accountId = buffer.getInt();
+            int highWaterMark = buffer.getInt();
+            int rows = buffer.getInt();
+            int dictionarySize = buffer.getInt();
+            int descriptionBytes = buffer.getInt();
+            double totalIncome = buffer.getDouble();
+            double totalExpenses = buffer.getDouble();
+            double balance = buffer.getDouble();
+            long expectedCrc = buffer.getLong();
+
+            ByteBuffer payload = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, CHECKED_HEADER_SIZE);
+            crc.update(payload.duplicate());
+            if (crc.getValue() != expectedCrc) {
+                System.err.println("Ignoring corrupt ledger snapshot: " + path);
+                return null;
+            }
+
+            long[] dates = new long[rows];
+            long[] amounts = new long[rows];
+            int[] ids = new int[rows];
+            int[] categoryCodes = new int[rows];
+            int[] currencyCodes = new int[rows];
+            int[] descriptionOffsets = new int[rows + 1];
+            byte[] incomeFlags = new byte[rows];
+
+            payload.asLongBuffer().get(dates);
+            payload.position(payload.position() + rows * Long.BYTES);
+            payload.asLongBuffer().get(amounts);
+            payload.position(payload.position() + rows * Long.BYTES);
+            payload.asIntBuffer().get(ids);
+            payload.position(payload.position() + rows * Integer.BYTES);
+            payload.asIntBuffer().get(categoryCodes);
+            payload.position(payload.position() + rows * Integer.BYTES);
+            payload.asIntBuffer().get(currencyCodes);
+            payload.position(payload.position() + rows * Integer.BYTES);
+            payload.asIntBuffer().get(descriptionOffsets);
+            payload.position(payload.position() + (rows + 1) * Integer.BYTES);
+            payload.get(incomeFlags);
+
+            String[] dictionary = new String[dictionarySize];
+            for (int i = 0; i < dictionarySize; i++) {
+                byte[] bytes = new byte[payload.getInt()];
+                payload.get(bytes);
+                dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            byte[] descriptions = new byte[descriptionBytes];
+            payload.get(descriptions);
+
+            List<Transaction> transactions = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                String description = new String(descriptions, descriptionOffsets[i],
+                        descriptionOffsets[i + 1] - descriptionOffsets[i], StandardCharsets.UTF_8);
+                transactions.add(new Transaction(ids[i], accountId, amounts[i], dictionary[currencyCodes[i]], description,
+                        dictionary[categoryCodes[i]], incomeFlags[i] != 0, dates[i]));
+            }
+
+            return new LedgerSnapshot(accountId, highWaterMark, totalIncome, totalExpenses, balance, transactions);
+
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading ledger snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Writes to a temporary file first so a crash never leaves a half-written snapshot
+    public static void write(Path path, LedgerSnapshot snapshot) throws IOException {
+        List<Transaction> transactions = snapshot.getTransactions();
+        int rows = transactions.size();
+
+        Map<String, Integer> codes = new HashMap<>();
+        List<byte[]> dictionary = new ArrayList<>();
+        int[] categoryCodes = new int[rows];
+        int[] currencyCodes = new int[rows];
+        byte[][] descriptions = new byte[rows][];
+        int descriptionBytes = 0;
+        int dictionaryBytes = 0;
+
+        for (int i = 0; i < rows; i++) {
+            Transaction t = transactions.get(i);
+            for (int column = 0; column < 2; column++) {
+                String value = column == 0 ? t.getCategory() : t.getCurrency();
+                Integer code = codes.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    codes.put(value, code);
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    dictionary.add(bytes);
+                    dictionaryBytes += Integer.BYTES + bytes.length;
+                }
+                (column == 0 ? categoryCodes : currencyCodes)[i] = code;
+            }
+            descriptions[i] = t.getDescription().getBytes(StandardCharsets.UTF_8);
+            descriptionBytes += descriptions[i].length;
+        }
+
+        int payloadSize = rows * (2 * Long.BYTES + 3 * Integer.BYTES + 1)
+                + (rows + 1) * Integer.BYTES + dictionaryBytes + descriptionBytes;
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        for (Transaction t : transactions) {
+            payload.putLong(t.getDateCreated());
+        }
+        for (Transaction t : transactions) {
+            payload.putLong(t.getAmountCents());
+        }
+        for (Transaction t : transactions) {
+            payload.putInt(t.getId());
+        }
+        for (int code : categoryCodes) {
+            payload.putInt(code);
+        }
+        for (int code : currencyCodes) {
+            payload.putInt(code);
+        }
+        int offset = 0;
+        for (byte[] description : descriptions) {
+            payload.putInt(offset);
+            offset += description.length;
+        }
+        payload.putInt(offset);
+        for (Transaction t : transactions) {
+            payload.put((byte) (t.isIncome() ? 1 : 0));
+        }
+        for (byte[] category : dictionary) {
+            payload.putInt(category.length);
+            payload.put(category);
+        }
+        for (byte[] description : descriptions) {
+            payload.put(description);
+        }
+        payload.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(snapshot.getAccountId())
+                .putInt(snapshot.getHighWaterMark())
+                .putInt(rows)
+                .putInt(dictionary.size())
+                .putInt(descriptionBytes)
+                .putDouble(snapshot.getTotalIncome())
+                .putDouble(snapshot.getTotalExpenses())
+                .putDouble(snapshot.getBalance());
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, CHECKED_HEADER_SIZE);
+        crc.update(payload.duplicate());
+        header.putLong(crc.getValue());
+        header.flip();
+
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining() || payload.hasRemaining()) {
+                channel.write(new ByteBuffer[] {header, payload});
+            }
+            channel.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
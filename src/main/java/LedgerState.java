@@ -0,0 +1,33 @@
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Holds the ledger currently shown by the app. Every change publishes a whole new
+// immutable LedgerSnapshot through an atomic reference, so readers on any thread
+// (EDT, loaders, schedulers) always see totals and rows that belong together,
+// without locking.
+public final class LedgerState {
+
+    private final AtomicReference<LedgerSnapshot> current;
+
+    public LedgerState(int accountId) {
+        this.current = new AtomicReference<>(
+                new LedgerSnapshot(accountId, 0, 0.0, 0.0, 0.0, new ArrayList<>()));
+    }
+
+    public LedgerSnapshot current() {
+        return current.get();
+    }
+
+    // Publishes a freshly loaded snapshot unless a newer one is already visible
+    public boolean publish(LedgerSnapshot next) {
+        while (true) {
+            LedgerSnapshot previous = current.get();
+            if (previous.getVersion() > next.getVersion()) {
+                return false;
+            }
+            if (current.compareAndSet(previous, next)) {
+                return true;
+            }
+        }
+    }
+}
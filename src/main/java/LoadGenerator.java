@@ -0,0 +1,443 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Seeds a database with synthetic transactions, then drives the DatabaseConnection
+// DAO from several threads and reports throughput, latency percentiles and memory
+// every interval. Point it at a throwaway database only; the loadtest profile runs
+// it against a local H2 file in MySQL mode:
+//   mvn -Ploadtest verify -Dloadtest.rows=2000000 -Dloadtest.durationSeconds=3600
+// With -Dfinance.load.http=true the same workload goes through an in-process
+// LedgerServer instead, one virtual thread per simulated client:
+//   mvn -Ploadtest verify -Dloadtest.http=true -Dloadtest.threads=1000
+public final class LoadGenerator {
+
+    private static final int ROWS = Integer.getInteger("finance.load.rows", 1_000_000);
+    private static final int ACCOUNTS = Integer.getInteger("finance.load.accounts", 4);
+    private static final int THREADS = Integer.getInteger("finance.load.threads", 8);
+    private static final long DURATION_SECONDS = Long.getLong("finance.load.durationSeconds", 300);
+    private static final long REPORT_SECONDS = Long.getLong("finance.load.reportSeconds", 10);
+    private static final int HISTORY_DAYS = Integer.getInteger("finance.load.historyDays", 730);
+    private static final long SEED = Long.getLong("finance.load.seed", 42);
+    private static final boolean HTTP = Boolean.getBoolean("finance.load.http");
+    private static final int SEED_CHUNK = 10_000;
+    // Same page size as LedgerServer uses for /export
+    private static final int EXPORT_PAGE = 1000;
+    private static final String USER = "loadtest";
+
+    // Expense categories with a typical (median) amount in KSh and their share of rows
+    private static final String[] CATEGORIES = {"🍕 Food & Dining", "🚗 Transportation", "🏠 Housing & Rent",
+            "💊 Healthcare", "🎬 Entertainment", "👕 Shopping", "💼 Business", "🎯 Other"};
+    private static final double[] MEDIAN_AMOUNTS = {650, 300, 25000, 2500, 1200, 3500, 8000, 1000};
+    private static final double[] CATEGORY_WEIGHTS = {0.34, 0.24, 0.03, 0.05, 0.09, 0.12, 0.05, 0.08};
+    private static final double INCOME_SHARE = 0.04;
+    private static final double INCOME_MEDIAN = 60000;
+    // A few rows in foreign currencies, with their rough value in shillings
+    private static final String[] FOREIGN_CURRENCIES = {"USD", "EUR"};
+    private static final double[] FOREIGN_SHARES = {0.05, 0.03};
+    private static final double[] FOREIGN_RATES = {130, 140};
+
+    // Mostly inserts and cheap refresh reads, like several desktops sharing a database
+    private enum Operation { INSERT, DELTA, TOTALS, RANGE }
+    private static final double[] OPERATION_MIX = {0.50, 0.25, 0.15, 0.10};
+
+    private static final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private static final LongAdder[] failures = new LongAdder[Operation.values().length];
+
+    private static HttpClient httpClient;
+    private static String serverBase;
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for (Operation op : Operation.values()) {
+            latencies[op.ordinal()] = new LatencyHistogram();
+            failures[op.ordinal()] = new LongAdder();
+        }
+
+        if (!DatabaseConnection.ensureTransactionsTable()
+                || !DatabaseConnection.ensureAccountSchema(USER)
+                || !DatabaseConnection.ensureCurrencySchema()
+                || !DatabaseConnection.ensureArchiveSchema()
+                || !DatabaseConnection.ensureBalanceSchema()) {
+            System.err.println("Could not prepare the load test schema");
+            System.exit(1);
+        }
+
+        List<Integer> accountIds = prepareAccounts();
+        if (accountIds.isEmpty()) {
+            System.err.println("No load test accounts available");
+            System.exit(1);
+        }
+        seed(accountIds);
+        soak(accountIds);
+    }
+
+    private static List<Integer> prepareAccounts() {
+        for (int i = 1; i <= ACCOUNTS; i++) {
+            // -1 just means the account exists from an earlier run
+            DatabaseConnection.createAccount(USER, "Load " + i);
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (Account account : DatabaseConnection.getAccounts(USER)) {
+            if (account.getName().startsWith("Load ")) {
+                ids.add(account.getId());
+            }
+        }
+        return ids;
+    }
+
+    // Tops every account up to its share of ROWS through the DAO's batched insert path,
+    // so repeated soak runs reuse the data set instead of growing it
+    private static void seed(List<Integer> accountIds) {
+        Random random = new Random(SEED);
+        int perAccount = ROWS / accountIds.size();
+        long started = System.nanoTime();
+        long seeded = 0;
+
+        for (int accountId : accountIds) {
+            long[] marker = DatabaseConnection.getLedgerMarker(accountId);
+            long missing = perAccount - (marker == null ? 0 : marker[0]);
+            List<Transaction> chunk = new ArrayList<>(SEED_CHUNK);
+
+            for (long i = 0; i < missing; i++) {
+                chunk.add(randomTransaction(random, accountId, randomHistoricDate(random)));
+                if (chunk.size() == SEED_CHUNK || i == missing - 1) {
+                    if (!DatabaseConnection.insertTransactions(chunk)) {
+                        System.err.println("Seeding stopped after " + seeded + " rows");
+                        return;
+                    }
+                    seeded += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("Seeded %d rows in %.1f s (%.0f rows/s), %d per account%n",
+                seeded, seconds, seeded / Math.max(seconds, 1e-9), perAccount);
+    }
+
+    private static void soak(List<Integer> accountIds) throws InterruptedException {
+        HttpServer server = null;
+        if (HTTP) {
+            try {
+                server = LedgerServer.start("127.0.0.1", 0, USER);
+            } catch (IOException e) {
+                System.err.println("Could not start the ledger server: " + e.getMessage());
+                System.exit(1);
+            }
+            serverBase = "http://127.0.0.1:" + server.getAddress().getPort();
+            httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        ExecutorService workers = HTTP ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    runOperation(accountIds);
+                }
+            });
+        }
+        workers.shutdown();
+
+        System.out.printf("Running %d %s against %d accounts for %d s%n",
+                THREADS, HTTP ? "HTTP clients" : "DAO threads", accountIds.size(), DURATION_SECONDS);
+        long started = System.nanoTime();
+        long[][] previous = new long[latencies.length][];
+        for (int i = 0; i < latencies.length; i++) {
+            previous[i] = latencies[i].counts();
+        }
+        long last = started;
+
+        while (!workers.awaitTermination(REPORT_SECONDS, TimeUnit.SECONDS)) {
+            long now = System.nanoTime();
+            System.out.printf("--- %d s%n", TimeUnit.NANOSECONDS.toSeconds(now - started));
+            for (Operation op : Operation.values()) {
+                long[] counts = latencies[op.ordinal()].counts();
+                report(op, LatencyHistogram.minus(counts, previous[op.ordinal()]), now - last);
+                previous[op.ordinal()] = counts;
+            }
+            reportMemory();
+            last = now;
+        }
+
+        System.out.println("=== Totals");
+        long elapsed = System.nanoTime() - started;
+        for (Operation op : Operation.values()) {
+            report(op, latencies[op.ordinal()].counts(), elapsed);
+        }
+        reportMemory();
+        System.out.println("Statement cache: " + ConnectionPool.getStatementCacheStats());
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private static void runOperation(List<Integer> accountIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int accountId = accountIds.get(random.nextInt(accountIds.size()));
+        Operation op = pick(random);
+
+        long started = System.nanoTime();
+        boolean ok = HTTP ? callServer(op, accountId, random) : callDao(op, accountId, random);
+        latencies[op.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        if (!ok) {
+            failures[op.ordinal()].increment();
+        }
+    }
+
+    private static boolean callDao(Operation op, int accountId, Random random) {
+        boolean ok;
+        switch (op) {
+            case INSERT: {
+                Transaction t = randomTransaction(random, accountId, System.currentTimeMillis());
+                ok = DatabaseConnection.insertTransaction(accountId, t.getAmountCents(), t.getCurrency(), t.getDescription(),
+                        t.getCategory(), t.isIncome());
+                break;
+            }
+            case DELTA: {
+                // What a desktop refresh does: check the marker, then fetch the new rows
+                long[] marker = DatabaseConnection.getLedgerMarker(accountId);
+                ok = marker != null
+                        && DatabaseConnection.getTransactionsAfter(accountId, (int) Math.max(0, marker[1] - 50)) != null;
+                break;
+            }
+            case TOTALS: {
+                // The queries behind /totals
+                ok = DatabaseConnection.getDailyTotals(accountId) != null;
+                DatabaseConnection.getPeriodSummaries(accountId);
+                break;
+            }
+            default: {
+                YearMonth month = YearMonth.now().minusMonths(random.nextInt(Math.max(1, HISTORY_DAYS / 30)));
+                ZoneId zone = ZoneId.systemDefault();
+                long from = month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                long to = month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                // Page through the month the way /export does
+                List<Transaction> page = DatabaseConnection.getTransactions(accountId, from, to, null, EXPORT_PAGE);
+                while (page != null && page.size() == EXPORT_PAGE) {
+                    page = DatabaseConnection.getTransactions(accountId, from, to, page.get(page.size() - 1), EXPORT_PAGE);
+                }
+                ok = page != null;
+                break;
+            }
+        }
+        return ok;
+    }
+
+    // The same mix as callDao, through the LedgerServer endpoints a script would use
+    private static boolean callServer(Operation op, int accountId, Random random) {
+        HttpRequest.Builder request;
+        switch (op) {
+            case INSERT: {
+                Transaction t = randomTransaction(random, accountId, System.currentTimeMillis());
+                String body = "{\"accountId\":" + accountId
+                        + ",\"amount\":" + Json.amount(t.getAmountCents())
+                        + ",\"currency\":" + Json.quote(t.getCurrency())
+                        + ",\"description\":" + Json.quote(t.getDescription())
+                        + ",\"category\":" + Json.quote(t.getCategory())
+                        + ",\"income\":" + t.isIncome() + "}";
+                request = HttpRequest.newBuilder(URI.create(serverBase + "/transactions"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body));
+                break;
+            }
+            case DELTA:
+                request = HttpRequest.newBuilder(URI.create(serverBase + "/transactions?limit=50&account=" + accountId));
+                break;
+            case TOTALS:
+                request = HttpRequest.newBuilder(URI.create(serverBase + "/totals?account=" + accountId));
+                break;
+            default: {
+                YearMonth month = YearMonth.now().minusMonths(random.nextInt(Math.max(1, HISTORY_DAYS / 30)));
+                request = HttpRequest.newBuilder(URI.create(serverBase + "/export?account=" + accountId
+                        + "&from=" + month.atDay(1) + "&to=" + month.plusMonths(1).atDay(1)));
+                break;
+            }
+        }
+
+        try {
+            HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Operation pick(Random random) {
+        double roll = random.nextDouble();
+        Operation[] ops = Operation.values();
+        for (int i = 0; i < ops.length - 1; i++) {
+            roll -= OPERATION_MIX[i];
+            if (roll < 0) {
+                return ops[i];
+            }
+        }
+        return ops[ops.length - 1];
+    }
+
+    // Log-normal amounts around a per-category median, rounded to whole shillings
+    // (or cents for the occasional foreign-currency row)
+    private static Transaction randomTransaction(Random random, int accountId, long dateCreated) {
+        String currency = DatabaseConnection.DEFAULT_CURRENCY;
+        double rate = 1;
+        double currencyRoll = random.nextDouble();
+        for (int i = 0; i < FOREIGN_CURRENCIES.length; i++) {
+            currencyRoll -= FOREIGN_SHARES[i];
+            if (currencyRoll < 0) {
+                currency = FOREIGN_CURRENCIES[i];
+                rate = FOREIGN_RATES[i];
+                break;
+            }
+        }
+
+        if (random.nextDouble() < INCOME_SHARE) {
+            double amount = Math.round(INCOME_MEDIAN * Math.exp(0.4 * random.nextGaussian()) / rate * 100) / 100.0;
+            return new Transaction(accountId, amount, currency, "Salary", "💼 Business", true, dateCreated);
+        }
+        int category = CATEGORIES.length - 1;
+        double roll = random.nextDouble();
+        for (int i = 0; i < CATEGORY_WEIGHTS.length; i++) {
+            roll -= CATEGORY_WEIGHTS[i];
+            if (roll < 0) {
+                category = i;
+                break;
+            }
+        }
+        double amount = Math.max(10, Math.round(MEDIAN_AMOUNTS[category] * Math.exp(0.7 * random.nextGaussian())));
+        amount = Math.round(amount / rate * 100) / 100.0;
+        return new Transaction(accountId, amount, currency, "Load " + CATEGORIES[category].substring(3) + " #" + random.nextInt(1000),
+                CATEGORIES[category], false, dateCreated);
+    }
+
+    // Spread over the history window, weighted towards waking hours
+    private static long randomHistoricDate(Random random) {
+        LocalDate day = LocalDate.now().minusDays(random.nextInt(HISTORY_DAYS));
+        int minute = 7 * 60 + (int) Math.min(16 * 60 - 1, Math.abs(random.nextGaussian()) * 6 * 60);
+        return day.atStartOfDay(ZoneId.systemDefault()).plusMinutes(minute).toInstant().toEpochMilli();
+    }
+
+    private static void report(Operation op, long[] counts, long elapsedNanos) {
+        long total = LatencyHistogram.total(counts);
+        double seconds = Math.max(elapsedNanos / 1e9, 1e-9);
+        System.out.printf("%-7s %9.1f ops/s  p50 %8.2f ms  p95 %8.2f ms  p99 %8.2f ms  max %8.2f ms  failures %d%n",
+                op, total / seconds,
+                LatencyHistogram.percentile(counts, 0.50) / 1000.0,
+                LatencyHistogram.percentile(counts, 0.95) / 1000.0,
+                LatencyHistogram.percentile(counts, 0.99) / 1000.0,
+                LatencyHistogram.percentile(counts, 1.0) / 1000.0,
+                failures[op.ordinal()].sum());
+    }
+
+    private static void reportMemory() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long collections = 0;
+        long collectionMillis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, gc.getCollectionCount());
+            collectionMillis += Math.max(0, gc.getCollectionTime());
+        }
+        System.out.printf("heap %d / %d MB committed %d MB, gc %d collections (%d ms)%n",
+                heap.getUsed() >> 20, heap.getMax() >> 20, heap.getCommitted() >> 20,
+                collections, collectionMillis);
+    }
+
+    // Fixed-size log-linear histogram of microsecond latencies: 32 linear sub-buckets
+    // per power of two, so every percentile is within ~3% while recording stays a
+    // single atomic increment however long the soak runs.
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKETS = 32;
+        private static final int SUB_BITS = 5;
+        private static final int MAX_EXPONENT = 36; // ~19 hours in microseconds
+
+        private final AtomicLongArray buckets = new AtomicLongArray((MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS);
+
+        void record(long micros) {
+            buckets.incrementAndGet(index(Math.max(0, micros)));
+        }
+
+        long[] counts() {
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return counts;
+        }
+
+        static long[] minus(long[] current, long[] previous) {
+            long[] delta = new long[current.length];
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] = current[i] - previous[i];
+            }
+            return delta;
+        }
+
+        static long total(long[] counts) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        // Upper bound of the bucket holding the given quantile, 0 when empty
+        static long percentile(long[] counts, double quantile) {
+            long total = total(counts);
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length - 1);
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+            long top = Math.min(value >>> (exponent - SUB_BITS), 2 * SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS) * SUB_BUCKETS + (int) top;
+        }
+
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+            long top = index % SUB_BUCKETS + SUB_BUCKETS;
+            return ((top + 1) << (exponent - SUB_BITS)) - 1;
+        }
+    }
+}
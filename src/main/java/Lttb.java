@@ -0,0 +1,62 @@
+// Largest-Triangle-Three-Buckets downsampling: keeps the visual shape of a
+// time series while reducing it to a fixed number of points.
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    // Returns the indexes of the points to keep, in ascending order
+    public static int[] downsample(double[] xs, double[] ys, int length, int threshold) {
+        if (threshold >= length || threshold < 3) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int count = 0;
+        selected[count++] = 0;
+
+        // The first and last points are always kept, the rest is split into buckets
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int a = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket is the third triangle vertex
+            int nextStart = Math.min(end, length - 1);
+            int nextEnd = Math.max(nextStart + 1, Math.min((int) ((bucket + 2) * bucketSize) + 1, length));
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += xs[i];
+                avgY += ys[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            double ax = xs[a];
+            double ay = ys[a];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ax - avgX) * (ys[i] - ay) - (ax - xs[i]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+
+            selected[count++] = chosen;
+            a = chosen;
+        }
+
+        selected[count] = length - 1;
+        return selected;
+    }
+}
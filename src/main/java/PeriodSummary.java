@@ -0,0 +1,43 @@
+import java.time.YearMonth;
+
+// Frozen totals of one closed month in one currency. The detail rows live in
+// transactions_archive.
+public class PeriodSummary {
+    private final int accountId;
+    private final YearMonth period;
+    private final String currency;
+    private final double income;
+    private final double expenses;
+    private final double transfersNet;
+    private final int rowCount;
+    private final double closingBalance;
+
+    public PeriodSummary(int accountId, YearMonth period, String currency, double income, double expenses,
+                         double transfersNet, int rowCount, double closingBalance) {
+        this.accountId = accountId;
+        this.period = period;
+        this.currency = currency;
+        this.income = income;
+        this.expenses = expenses;
+        this.transfersNet = transfersNet;
+        this.rowCount = rowCount;
+        this.closingBalance = closingBalance;
+    }
+
+    // Getters
+    public int getAccountId() { return accountId; }
+    public YearMonth getPeriod() { return period; }
+    public String getCurrency() { return currency; }
+    public double getIncome() { return income; }
+    public double getExpenses() { return expenses; }
+    public double getTransfersNet() { return transfersNet; }
+    public int getRowCount() { return rowCount; }
+    // Balance in this currency carried forward into the next period
+    public double getClosingBalance() { return closingBalance; }
+
+    @Override
+    public String toString() {
+        return String.format("PeriodSummary{accountId=%d, period=%s, currency=%s, income=%.2f, expenses=%.2f, closingBalance=%.2f}",
+                accountId, period, currency, income, expenses, closingBalance);
+    }
+}
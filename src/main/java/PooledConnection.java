@@ -0,0 +1,129 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A physical connection leased from ConnectionPool together with its own LRU
+// cache of prepared statements. Statements handed out by prepare() stay open
+// and must not be closed by callers; closing the lease returns it to the pool.
+public class PooledConnection implements AutoCloseable {
+
+    private static final String KEYS_SUFFIX = "\u0000keys";
+
+    private final Connection connection;
+    private final int statementCacheSize;
+    private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private long lastUsed = System.currentTimeMillis();
+    private boolean leased;
+
+    PooledConnection(Connection connection, int statementCacheSize) {
+        this.connection = connection;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, false);
+    }
+
+    public PreparedStatement prepareWithKeys(String sql) throws SQLException {
+        return prepare(sql, true);
+    }
+
+    // Raw connection for DDL and metadata, which are not worth caching
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        connection.setAutoCommit(autoCommit);
+    }
+
+    public void commit() throws SQLException {
+        connection.commit();
+    }
+
+    public void rollback() throws SQLException {
+        connection.rollback();
+    }
+
+    @Override
+    public void close() {
+        // Guard against double release handing one connection to two threads
+        if (leased) {
+            leased = false;
+            ConnectionPool.release(this);
+        }
+    }
+
+    void lease() {
+        leased = true;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    // Puts the connection back into auto-commit mode, returns false if it is unusable
+    boolean reset() {
+        lastUsed = System.currentTimeMillis();
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Already broken, nothing left to release
+        }
+    }
+
+    private PreparedStatement prepare(String sql, boolean returnKeys) throws SQLException {
+        String key = returnKeys ? sql + KEYS_SUFFIX : sql;
+        PreparedStatement statement = statements.get(key);
+        if (statement != null && !statement.isClosed()) {
+            ConnectionPool.recordHit();
+            // A failed batch may have left entries that would otherwise run on this use
+            statement.clearBatch();
+            statement.clearParameters();
+            return statement;
+        }
+
+        ConnectionPool.recordMiss();
+        statement = returnKeys
+                ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : connection.prepareStatement(sql);
+        statements.put(key, statement);
+
+        // Evict the least recently used statement; the driver keeps no cache of its
+        // own (cachePrepStmts=false), so closing it frees the server-side handle
+        if (statements.size() > statementCacheSize) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+            closeQuietly(eldest.next().getValue());
+            eldest.remove();
+        }
+        return statement;
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // Closing a statement on a dead connection is expected to fail
+        }
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Finds duplicate transactions without comparing every pair. Each row gets a
+// fingerprint of (amount in cents, currency, income/expense, calendar day) that is
+// hashed into a chained index built from primitive arrays; candidates are only
+// compared inside the buckets of the same day and the days either side, and then
+// by normalized description. Indexing and probing are O(n) overall.
+//
+// EXACT: same fingerprint on the same day and the same normalized description.
+// NEAR:  same amount and direction within a day, and descriptions that share at
+//        least half of their words (or one of them has none).
+public final class Reconciler {
+
+    public enum MatchType { EXACT, NEAR }
+
+    // A row (or imported line) that looks like a copy of an existing row. For
+    // imported lines without a counterpart the existing row and type are null.
+    public static final class Match {
+        private final Transaction existing;
+        private final Transaction duplicate;
+        private final MatchType type;
+
+        Match(Transaction existing, Transaction duplicate, MatchType type) {
+            this.existing = existing;
+            this.duplicate = duplicate;
+            this.type = type;
+        }
+
+        // Getters
+        public Transaction getExisting() { return existing; }
+        public Transaction getDuplicate() { return duplicate; }
+        public MatchType getType() { return type; }
+        public boolean isNew() { return existing == null; }
+    }
+
+    private static final double NEAR_SIMILARITY = 0.5;
+    private static final int END = -1;
+    private static final DateTimeFormatter[] STATEMENT_DATES = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("d/M/uuuu"),
+            DateTimeFormatter.ofPattern("d-M-uuuu"),
+            DateTimeFormatter.ofPattern("d MMM uuuu", Locale.ENGLISH)
+    };
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Columns of the indexed rows
+    private final List<Transaction> rows;
+    private final long[] cents;
+    private final int[] days;
+    private final int[] signs;
+    private final String[] currencies;
+    private final String[] descriptions;
+
+    // Chained hash index: heads[slot] -> first row, next[row] -> following row
+    private final int[] heads;
+    private final int[] next;
+    private final int mask;
+
+    public Reconciler(List<Transaction> ledger) {
+        int size = ledger.size();
+        this.rows = ledger;
+        this.cents = new long[size];
+        this.days = new int[size];
+        this.signs = new int[size];
+        this.currencies = new String[size];
+        this.descriptions = new String[size];
+        for (int i = 0; i < size; i++) {
+            Transaction t = ledger.get(i);
+            cents[i] = t.getAmountCents();
+            days[i] = dayOf(t.getDateCreated());
+            signs[i] = t.isIncome() ? 1 : 0;
+            currencies[i] = t.getCurrency();
+            descriptions[i] = normalize(t.getDescription());
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(16, size * 2 - 1)) << 1;
+        this.heads = new int[capacity];
+        this.next = new int[size];
+        this.mask = capacity - 1;
+        Arrays.fill(heads, END);
+    }
+
+    // Duplicates inside the ledger. Rows are indexed oldest first, so the older row
+    // of each pair is the one to keep and every later copy points at it.
+    public List<Match> findDuplicates() {
+        clearIndex();
+        List<Match> matches = new ArrayList<>();
+        // The ledger is newest first
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            int found = bestMatch(cents[i], currencies[i], signs[i], days[i], descriptions[i], null);
+            if (found == END) {
+                add(i);
+                continue;
+            }
+            int match = found & Integer.MAX_VALUE;
+            MatchType type = found < 0 ? MatchType.EXACT : MatchType.NEAR;
+            matches.add(new Match(rows.get(match), rows.get(i), type));
+        }
+        return matches;
+    }
+
+    // Matches each imported line against the ledger; every ledger row can absorb at
+    // most one line, so a statement with two identical coffees needs two rows.
+    // Returns one entry per imported line, in order.
+    public List<Match> matchImported(List<Transaction> imported) {
+        clearIndex();
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            add(i);
+        }
+
+        boolean[] used = new boolean[rows.size()];
+        List<Match> result = new ArrayList<>(imported.size());
+        for (Transaction line : imported) {
+            int found = bestMatch(line.getAmountCents(), line.getCurrency(), line.isIncome() ? 1 : 0,
+                    dayOf(line.getDateCreated()), normalize(line.getDescription()), used);
+            if (found == END) {
+                result.add(new Match(null, line, null));
+                continue;
+            }
+            int match = found & Integer.MAX_VALUE;
+            used[match] = true;
+            result.add(new Match(rows.get(match), line, found < 0 ? MatchType.EXACT : MatchType.NEAR));
+        }
+        return result;
+    }
+
+    // Statement CSV: date, description, amount (negative for money out), with an
+    // optional header row and quoted fields. Unparseable lines are reported and skipped.
+    public static List<Transaction> readStatement(Path file, int accountId, String currency, String category)
+            throws IOException {
+        List<Transaction> lines = new ArrayList<>();
+        ZoneId zone = ZoneId.systemDefault();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    List<String> fields = splitCsv(line);
+                    LocalDate date = parseDate(fields.get(0));
+                    BigDecimal amount = new BigDecimal(fields.get(fields.size() - 1).replace(",", "").trim());
+                    long cents = Transaction.toCents(amount.abs());
+                    String description = String.join(",", fields.subList(1, fields.size() - 1)).trim();
+                    if (cents == 0 || description.isEmpty()) {
+                        throw new IllegalArgumentException("empty amount or description");
+                    }
+                    // Noon, so the row lands on the same calendar day in nearby time zones
+                    long when = date.atTime(LocalTime.NOON).atZone(zone).toInstant().toEpochMilli();
+                    lines.add(new Transaction(0, accountId, cents, currency, description, category, amount.signum() > 0, when));
+                } catch (RuntimeException e) {
+                    if (lineNumber > 1) {
+                        System.err.println("Skipping statement line " + lineNumber + ": " + line);
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+    // Lower case letters and digits only; long digit runs (references, card
+    // numbers) are dropped since banks print them inconsistently
+    static String normalize(String description) {
+        StringBuilder sb = new StringBuilder(description.length());
+        int tokenStart = 0;
+        boolean digitsOnly = true;
+        for (int i = 0; i <= description.length(); i++) {
+            char c = i < description.length() ? Character.toLowerCase(description.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                digitsOnly &= Character.isDigit(c);
+                sb.append(c);
+                continue;
+            }
+            if (sb.length() > tokenStart) {
+                if (digitsOnly && sb.length() - tokenStart >= 4) {
+                    sb.setLength(tokenStart);
+                } else {
+                    sb.append(' ');
+                }
+            }
+            tokenStart = sb.length();
+            digitsOnly = true;
+        }
+        return sb.toString().trim();
+    }
+
+    // Share of distinct words the two descriptions have in common (Jaccard)
+    static double similarity(String a, String b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 1.0;
+        }
+        Set<String> left = new HashSet<>(Arrays.asList(a.split(" ")));
+        Set<String> right = new HashSet<>(Arrays.asList(b.split(" ")));
+        int common = 0;
+        for (String word : left) {
+            if (right.contains(word)) {
+                common++;
+            }
+        }
+        return (double) common / (left.size() + right.size() - common);
+    }
+
+    // Best indexed row for the fingerprint, checking the same day first. Returns
+    // END, the row for a NEAR match, or the row with the sign bit set for EXACT.
+    private int bestMatch(long amountCents, String currency, int sign, int day, String description, boolean[] used) {
+        int near = END;
+        for (int offset : new int[] {0, -1, 1}) {
+            int probeDay = day + offset;
+            for (int r = heads[slot(amountCents, probeDay, sign)]; r != END; r = next[r]) {
+                if (cents[r] != amountCents || days[r] != probeDay || signs[r] != sign
+                        || !currencies[r].equals(currency) || (used != null && used[r])) {
+                    continue;
+                }
+                if (offset == 0 && descriptions[r].equals(description)) {
+                    return r | Integer.MIN_VALUE;
+                }
+                if (near == END && (descriptions[r].equals(description)
+                        || similarity(descriptions[r], description) >= NEAR_SIMILARITY)) {
+                    near = r;
+                }
+            }
+        }
+        return near;
+    }
+
+    private void add(int row) {
+        int slot = slot(cents[row], days[row], signs[row]);
+        next[row] = heads[slot];
+        heads[slot] = row;
+    }
+
+    private void clearIndex() {
+        Arrays.fill(heads, END);
+    }
+
+    // Currency is left out of the hash (it rarely differs) and checked on compare
+    private int slot(long amountCents, int day, int sign) {
+        long h = amountCents * 0x9E3779B97F4A7C15L + day * 0xC2B2AE3D27D4EB4FL + sign;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        return (int) h & mask;
+    }
+
+    private int dayOf(long epochMillis) {
+        return (int) LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), zone).toEpochDay();
+    }
+
+    private static LocalDate parseDate(String text) {
+        String value = text.trim();
+        for (DateTimeFormatter format : STATEMENT_DATES) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        throw new IllegalArgumentException("Unrecognized date: " + value);
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (fields.size() < 3) {
+            throw new IllegalArgumentException("Expected date, description and amount");
+        }
+        return fields;
+    }
+}
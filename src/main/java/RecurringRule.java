@@ -0,0 +1,80 @@
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+public final class RecurringRule {
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY;
+
+        // Occurrences are always derived from the anchor so that e.g. a rule
+        // starting on the 31st does not drift to the 28th after February.
+        public ZonedDateTime occurrence(ZonedDateTime anchor, int n) {
+            switch (this) {
+                case DAILY: return anchor.plusDays(n);
+                case WEEKLY: return anchor.plusWeeks(n);
+                case MONTHLY: return anchor.plusMonths(n);
+                default: return anchor.plusYears(n);
+            }
+        }
+    }
+
+    private final int id;
+    private final int accountId;
+    private final long amountCents;
+    private final String currency;
+    private final String description;
+    private final String category;
+    private final boolean isIncome;
+    private final Frequency frequency;
+    private final long startsAt;
+    private int postedCount;
+    private long nextRun;
+
+    public RecurringRule(int id, int accountId, long amountCents, String currency, String description, String category,
+                         boolean isIncome, Frequency frequency, long startsAt, int postedCount) {
+        this.id = id;
+        this.accountId = accountId;
+        this.amountCents = amountCents;
+        this.currency = currency;
+        this.description = description;
+        this.category = category;
+        this.isIncome = isIncome;
+        this.frequency = frequency;
+        this.startsAt = startsAt;
+        this.postedCount = postedCount;
+        this.nextRun = occurrenceAt(postedCount);
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public int getAccountId() { return accountId; }
+    public long getAmountCents() { return amountCents; }
+    public double getAmount() { return amountCents / 100.0; }
+    public String getCurrency() { return currency; }
+    public String getDescription() { return description; }
+    public String getCategory() { return category; }
+    public boolean isIncome() { return isIncome; }
+    public Frequency getFrequency() { return frequency; }
+    public long getStartsAt() { return startsAt; }
+    public int getPostedCount() { return postedCount; }
+
+    public long getNextRun() { return nextRun; }
+
+    public void setPostedCount(int postedCount) {
+        this.postedCount = postedCount;
+        this.nextRun = occurrenceAt(postedCount);
+    }
+
+    // Due time of the n-th posting (0-based) in epoch millis
+    public long occurrenceAt(int n) {
+        ZonedDateTime anchor = Instant.ofEpochMilli(startsAt).atZone(ZoneId.systemDefault());
+        return frequency.occurrence(anchor, n).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RecurringRule{id=%d, amount=%.2f, description='%s', frequency=%s, posted=%d}",
+                id, getAmount(), description, frequency, postedCount);
+    }
+}
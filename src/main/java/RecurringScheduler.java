@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Materializes recurring rules into transactions. All rules live in one
+// priority queue ordered by next due time and a single background thread
+// sleeps until the head is due, so thousands of rules cost one timer. The rules
+// are re-read every few minutes so rules saved or posted by other desktops of
+// the same user are picked up; the database decides which desktop posts a period.
+public class RecurringScheduler {
+
+    // Upper bound on postings generated for one rule in one pass (a year of daily rules)
+    private static final int MAX_CATCH_UP = 366;
+    // Re-check at least this often so wall-clock jumps (sleep, DST) are noticed
+    private static final long MAX_SLEEP_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long RELOAD_DELAY_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final PriorityQueue<RecurringRule> queue =
+            new PriorityQueue<>(Comparator.comparingLong(RecurringRule::getNextRun));
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "recurring-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final String userName;
+    private final Consumer<List<Transaction>> onPosted;
+    private ScheduledFuture<?> wakeUp;
+    // Set once the rules have been read; only touched on the scheduler thread
+    private boolean loaded;
+
+    // Schedules the rules of every account owned by the given user
+    public RecurringScheduler(String userName, Consumer<List<Transaction>> onPosted) {
+        this.userName = userName;
+        this.onPosted = onPosted;
+    }
+
+    public void start() {
+        executor.execute(this::loadRules);
+        executor.scheduleWithFixedDelay(this::loadRules, RELOAD_DELAY_MS, RELOAD_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void addRule(RecurringRule rule) {
+        executor.execute(() -> {
+            // Until the first load succeeds the saved rule arrives with it
+            if (!loaded) {
+                return;
+            }
+            // A reload since the rule was saved may have queued it already
+            queue.removeIf(queued -> queued.getId() == rule.getId());
+            queue.add(rule);
+            runDue();
+        });
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Runs on the scheduler thread and replaces the queue with the rules as the
+    // database has them now. On failure the queued rules are kept until the next reload.
+    private void loadRules() {
+        if (!loaded && !DatabaseConnection.ensureRecurringTable()) {
+            return;
+        }
+        List<RecurringRule> rules = DatabaseConnection.getActiveRecurringRules(userName);
+        if (rules == null) {
+            return;
+        }
+        queue.clear();
+        queue.addAll(rules);
+        loaded = true;
+        runDue();
+    }
+
+    // Runs on the scheduler thread only
+    private void runDue() {
+        long now = System.currentTimeMillis();
+        List<RecurringRule> due = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().getNextRun() <= now) {
+            due.add(queue.poll());
+        }
+
+        if (!due.isEmpty()) {
+            List<List<Transaction>> postings = new ArrayList<>();
+            int[] postedCounts = new int[due.size()];
+
+            // Catch up every period missed while the app was closed
+            for (int i = 0; i < due.size(); i++) {
+                RecurringRule rule = due.get(i);
+                List<Transaction> rows = new ArrayList<>();
+                int n = rule.getPostedCount();
+                long when = rule.occurrenceAt(n);
+                while (when <= now && n - rule.getPostedCount() < MAX_CATCH_UP) {
+                    rows.add(new Transaction(0, rule.getAccountId(), rule.getAmountCents(), rule.getCurrency(),
+                            rule.getDescription(), rule.getCategory(), rule.isIncome(), when));
+                    when = rule.occurrenceAt(++n);
+                }
+                postings.add(rows);
+                postedCounts[i] = n;
+            }
+
+            boolean[] posted = DatabaseConnection.postRecurring(due, postedCounts, postings);
+            if (posted == null) {
+                // Leave the rules untouched and try again later
+                queue.addAll(due);
+                schedule(RETRY_DELAY_MS);
+                return;
+            }
+
+            List<Transaction> mine = new ArrayList<>();
+            boolean stale = false;
+            for (int i = 0; i < due.size(); i++) {
+                if (posted[i]) {
+                    due.get(i).setPostedCount(postedCounts[i]);
+                    queue.add(due.get(i));
+                    mine.addAll(postings.get(i));
+                } else {
+                    stale = true;
+                }
+            }
+            if (!mine.isEmpty()) {
+                onPosted.accept(mine);
+            }
+            if (stale) {
+                // Another desktop posted (or removed) some of these rules first;
+                // continue from the counts it left in the database
+                loadRules();
+                return;
+            }
+        }
+
+        if (!queue.isEmpty()) {
+            schedule(Math.min(MAX_SLEEP_MS, Math.max(0, queue.peek().getNextRun() - System.currentTimeMillis())));
+        }
+    }
+
+    private void schedule(long delayMs) {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUp = executor.schedule(this::runDue, delayMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+// Keeps the window in step with changes made elsewhere (other desktops, the
+// ledger server, the load generator) without reloading on a fixed timer. It
+// probes the account's ledger marker (row count and highest id, one indexed
+// query) and only asks for a reload when the marker moves. Idle probes back off
+// from finance.refresh.min.ms (default 2s) up to finance.refresh.max.ms (default
+// 60s); a change drops the delay back to the minimum. Paused while minimized.
+public class RefreshScheduler {
+
+    private static final long MIN_DELAY_MS = Long.getLong("finance.refresh.min.ms", TimeUnit.SECONDS.toMillis(2));
+    private static final long MAX_DELAY_MS = Math.max(MIN_DELAY_MS,
+            Long.getLong("finance.refresh.max.ms", TimeUnit.MINUTES.toMillis(1)));
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ledger-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final IntSupplier accountId;
+    private final Supplier<CompletableFuture<?>> reload;
+    // Set while a reload is queued or running, so bursts of changes cost one reload
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    // Set by requests that arrive meanwhile; the running reload may have read the
+    // database before their change, so one more reload follows it
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // Only touched on the refresh thread
+    private ScheduledFuture<?> nextProbe;
+    private boolean paused;
+    private long delay = MIN_DELAY_MS;
+    private int probedAccount = -1;
+    private long[] lastMarker;
+
+    public RefreshScheduler(IntSupplier accountId, Supplier<CompletableFuture<?>> reload) {
+        this.accountId = accountId;
+        this.reload = reload;
+    }
+
+    public void start() {
+        executor.execute(() -> schedule(MIN_DELAY_MS));
+    }
+
+    // Stops probing until resume(), e.g. while the window is minimized
+    public void pause() {
+        executor.execute(() -> {
+            paused = true;
+            if (nextProbe != null) {
+                nextProbe.cancel(false);
+                nextProbe = null;
+            }
+        });
+    }
+
+    // Probes straight away, since anything may have changed while paused
+    public void resume() {
+        executor.execute(() -> {
+            paused = false;
+            delay = MIN_DELAY_MS;
+            schedule(0);
+        });
+    }
+
+    // Reload now, or once more after the reload already on its way
+    public void requestRefresh() {
+        dirty.set(true);
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+        dirty.set(false);
+        try {
+            reload.get().whenComplete((result, error) -> {
+                reloading.set(false);
+                if (dirty.get()) {
+                    requestRefresh();
+                }
+            });
+        } catch (RuntimeException e) {
+            reloading.set(false);
+            System.err.println("Error refreshing ledger: " + e.getMessage());
+        }
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Runs on the refresh thread only
+    private void probe() {
+        nextProbe = null;
+        if (paused) {
+            return;
+        }
+
+        int account = accountId.getAsInt();
+        long[] marker = DatabaseConnection.getLedgerMarker(account);
+        if (marker == null) {
+            // Database unreachable: keep backing off rather than hammering it
+            delay = Math.min(delay * 2, MAX_DELAY_MS);
+        } else if (account != probedAccount) {
+            // Switching accounts loads the ledger already; just start tracking it
+            probedAccount = account;
+            lastMarker = marker;
+            delay = MIN_DELAY_MS;
+        } else if (!Arrays.equals(marker, lastMarker)) {
+            lastMarker = marker;
+            delay = MIN_DELAY_MS;
+            requestRefresh();
+        } else {
+            delay = Math.min(delay * 2, MAX_DELAY_MS);
+        }
+        schedule(delay);
+    }
+
+    private void schedule(long delayMs) {
+        if (paused || executor.isShutdown()) {
+            return;
+        }
+        if (nextProbe != null) {
+            nextProbe.cancel(false);
+        }
+        nextProbe = executor.schedule(this::probe, delayMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,53 +1,68 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.Timestamp;
-import java.util.Date;
 
-public class Transaction {
-    private int id;
-    private double amount;
-    private String description;
-    private String category;
-    private boolean isIncome;
-    private Timestamp dateCreated;
+// Immutable ledger entry. Amounts are exact minor units (cents) and dates are
+// epoch millis, so instances carry no mutable Date/Timestamp and can be shared
+// freely between the loader threads and the EDT without defensive copies.
+public final class Transaction {
+    private final int id;
+    private final int accountId;
+    private final long amountCents;
+    private final String currency;
+    private final String description;
+    private final String category;
+    private final boolean isIncome;
+    private final long dateCreated;
+
+    // Constructor for new transactions (without ID) in the default currency
+    public Transaction(int accountId, double amount, String description, String category, boolean isIncome, long dateCreated) {
+        this(accountId, amount, DatabaseConnection.DEFAULT_CURRENCY, description, category, isIncome, dateCreated);
+    }
 
     // Constructor for new transactions (without ID)
-    public Transaction(double amount, String description, String category, boolean isIncome, Date date) {
-        this.amount = amount;
-        this.description = description;
-        this.category = category;
-        this.isIncome = isIncome;
-        this.dateCreated = new Timestamp(date.getTime());
+    public Transaction(int accountId, double amount, String currency, String description, String category, boolean isIncome, long dateCreated) {
+        this(0, accountId, toCents(amount), currency, description, category, isIncome, dateCreated);
     }
 
     // Constructor for database transactions (with ID)
-    public Transaction(int id, double amount, String description, String category, boolean isIncome, Timestamp dateCreated) {
+    public Transaction(int id, int accountId, long amountCents, String currency, String description, String category, boolean isIncome, long dateCreated) {
         this.id = id;
-        this.amount = amount;
+        this.accountId = accountId;
+        this.amountCents = amountCents;
+        this.currency = currency;
         this.description = description;
         this.category = category;
         this.isIncome = isIncome;
         this.dateCreated = dateCreated;
     }
 
+    // Rounds a decimal amount to exact cents; exact for any DECIMAL(x,2) below 2^53 cents
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    // Exact cents of a typed or parsed amount; fractions of a cent round half up.
+    // Throws ArithmeticException if the amount does not fit in a long.
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
     // Getters
     public int getId() { return id; }
-    public double getAmount() { return amount; }
+    public int getAccountId() { return accountId; }
+    public long getAmountCents() { return amountCents; }
+    public double getAmount() { return amountCents / 100.0; }
+    // ISO 4217 code of the amount, e.g. "KES"
+    public String getCurrency() { return currency; }
     public String getDescription() { return description; }
     public String getCategory() { return category; }
     public boolean isIncome() { return isIncome; }
-    public Timestamp getDateCreated() { return dateCreated; }
-    public Date getDate() { return new Date(dateCreated.getTime()); }
-
-    // Setters
-    public void setId(int id) { this.id = id; }
-    public void setAmount(double amount) { this.amount = amount; }
-    public void setDescription(String description) { this.description = description; }
-    public void setCategory(String category) { this.category = category; }
-    public void setIsIncome(boolean isIncome) { this.isIncome = isIncome; }
-    public void setDateCreated(Timestamp dateCreated) { this.dateCreated = dateCreated; }
+    public long getDateCreated() { return dateCreated; }
 
     @Override
     public String toString() {
-        return String.format("Transaction{id=%d, amount=%.2f, description='%s', category='%s', isIncome=%b, date=%s}",
-                id, amount, description, category, isIncome, dateCreated);
+        return String.format("Transaction{id=%d, accountId=%d, amount=%.2f %s, description='%s', category='%s', isIncome=%b, date=%s}",
+                id, accountId, getAmount(), currency, description, category, isIncome, new Timestamp(dateCreated));
     }
-}
\ No newline at end of file
+}
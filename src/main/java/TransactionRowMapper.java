@@ -0,0 +1,40 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Maps transaction rows by column index. The indexes are resolved once per
+// result set instead of looking every column up by name on every row. Amounts
+// are read as DECIMAL and kept as exact cents; nothing goes through a double.
+public final class TransactionRowMapper {
+    private final int id;
+    private final int accountId;
+    private final int amount;
+    private final int currency;
+    private final int description;
+    private final int category;
+    private final int isIncome;
+    private final int dateCreated;
+
+    public TransactionRowMapper(ResultSet rs) throws SQLException {
+        this.id = rs.findColumn("id");
+        this.accountId = rs.findColumn("account_id");
+        this.amount = rs.findColumn("amount");
+        this.currency = rs.findColumn("currency");
+        this.description = rs.findColumn("description");
+        this.category = rs.findColumn("category");
+        this.isIncome = rs.findColumn("is_income");
+        this.dateCreated = rs.findColumn("date_created");
+    }
+
+    public Transaction map(ResultSet rs) throws SQLException {
+        return new Transaction(
+            rs.getInt(id),
+            rs.getInt(accountId),
+            rs.getBigDecimal(amount).movePointRight(2).longValueExact(),
+            rs.getString(currency),
+            rs.getString(description),
+            rs.getString(category),
+            rs.getBoolean(isIncome),
+            rs.getTimestamp(dateCreated).getTime()
+        );
+    }
+}
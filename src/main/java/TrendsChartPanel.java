@@ -0,0 +1,274 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Balance-over-time and spend-by-category chart. Everything is drawn into cached
+// BufferedImage layers on a background thread; paintComponent only blits them,
+// so resizing or scrolling never re-walks the ledger on the EDT. Amounts are
+// drawn in the base currency.
+public class TrendsChartPanel extends JPanel {
+
+    private static final BasicStroke GRID_STROKE = new BasicStroke(1f);
+    private static final BasicStroke LINE_STROKE = new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final Font LABEL_FONT = new Font("SF Pro Display", Font.PLAIN, 11);
+    private static final int PADDING = 16;
+    private static final int MAX_CATEGORIES = 6;
+
+    private final Color gridColor;
+    private final Color lineColor;
+    private final Color barColor;
+    private final Color textColor;
+    private final FxRates fx;
+    private final DecimalFormat df = new DecimalFormat("#,##0");
+
+    private final ExecutorService renderer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chart-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Bumped on every data or size change so stale render jobs can bail out early
+    private final AtomicLong generation = new AtomicLong();
+
+    // Only touched on the renderer thread
+    private Series series = Series.EMPTY;
+    private int[] sampled = new int[0];
+    private int sampledWidth = -1;
+    private BufferedImage gridLayer;
+
+    // Published to the EDT
+    private volatile BufferedImage gridImage;
+    private volatile BufferedImage seriesImage;
+
+    public TrendsChartPanel(FxRates fx, Color gridColor, Color lineColor, Color barColor, Color textColor) {
+        this.fx = fx;
+        this.gridColor = gridColor;
+        this.lineColor = lineColor;
+        this.barColor = barColor;
+        this.textColor = textColor;
+        setOpaque(false);
+
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                requestRender(null, 0.0);
+            }
+        });
+    }
+
+    // The running balance is anchored on the current balance, so history moved to
+    // closed periods is still reflected in where the line starts
+    public void setTransactions(List<Transaction> transactions, double balance) {
+        requestRender(transactions, balance);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        BufferedImage grid = gridImage;
+        BufferedImage chart = seriesImage;
+        // Stale layers are stretched until the renderer catches up with a resize
+        if (grid != null) {
+            g.drawImage(grid, 0, 0, getWidth(), getHeight(), null);
+        }
+        if (chart != null) {
+            g.drawImage(chart, 0, 0, getWidth(), getHeight(), null);
+        }
+    }
+
+    private void requestRender(List<Transaction> transactions, double balance) {
+        long job = generation.incrementAndGet();
+        int width = getWidth();
+        int height = getHeight();
+        if ((width <= 0 || height <= 0) && transactions == null) {
+            return;
+        }
+
+        renderer.execute(() -> {
+            if (transactions != null) {
+                series = Series.from(transactions, balance, fx);
+                sampledWidth = -1;
+            }
+            if (generation.get() != job || width <= 0 || height <= 0) {
+                return;
+            }
+            render(width, height, job);
+        });
+    }
+
+    // Runs on the renderer thread
+    private void render(int width, int height, long job) {
+        if (gridLayer == null || gridLayer.getWidth() != width || gridLayer.getHeight() != height) {
+            gridLayer = renderGrid(width, height);
+        }
+
+        int plotWidth = Math.max(3, width - 2 * PADDING);
+        if (sampledWidth != plotWidth) {
+            sampled = Lttb.downsample(series.times, series.balances, series.size, plotWidth);
+            sampledWidth = plotWidth;
+        }
+        if (generation.get() != job) {
+            return;
+        }
+
+        BufferedImage image = renderSeries(width, height);
+        if (generation.get() != job) {
+            return;
+        }
+
+        gridImage = gridLayer;
+        seriesImage = image;
+        repaint();
+    }
+
+    private BufferedImage renderGrid(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2 = image.createGraphics();
+        g2.setColor(gridColor);
+        g2.setStroke(GRID_STROKE);
+
+        int lineHeight = lineChartHeight(height);
+        for (int i = 0; i <= 4; i++) {
+            int y = PADDING + i * (lineHeight - PADDING) / 4;
+            g2.drawLine(PADDING, y, width - PADDING, y);
+        }
+
+        g2.dispose();
+        return image;
+    }
+
+    private BufferedImage renderSeries(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(LABEL_FONT);
+        FontMetrics fm = g2.getFontMetrics();
+
+        if (series.size == 0) {
+            g2.setColor(textColor);
+            String empty = "No transactions to chart yet";
+            g2.drawString(empty, (width - fm.stringWidth(empty)) / 2, height / 2);
+            g2.dispose();
+            return image;
+        }
+
+        // Balance over time
+        int lineHeight = lineChartHeight(height);
+        double minX = series.times[0];
+        double maxX = series.times[series.size - 1];
+        double minY = Math.min(0, series.minBalance);
+        double maxY = Math.max(0, series.maxBalance);
+        double spanX = Math.max(1, maxX - minX);
+        double spanY = Math.max(1, maxY - minY);
+        int plotWidth = width - 2 * PADDING;
+        int plotHeight = lineHeight - PADDING;
+
+        int[] xs = new int[sampled.length];
+        int[] ys = new int[sampled.length];
+        for (int i = 0; i < sampled.length; i++) {
+            int index = sampled[i];
+            xs[i] = PADDING + (int) ((series.times[index] - minX) / spanX * plotWidth);
+            ys[i] = lineHeight - (int) ((series.balances[index] - minY) / spanY * plotHeight);
+        }
+        g2.setColor(lineColor);
+        g2.setStroke(LINE_STROKE);
+        g2.drawPolyline(xs, ys, sampled.length);
+
+        g2.setColor(textColor);
+        g2.drawString("Balance  " + FxRates.symbol(fx.getBaseCurrency()) + " " + df.format(series.balances[series.size - 1]), PADDING, PADDING - 4 + fm.getAscent());
+
+        // Spend by category
+        int barTop = lineHeight + PADDING + fm.getHeight();
+        int rows = Math.min(MAX_CATEGORIES, series.categories.length);
+        int rowHeight = rows == 0 ? 0 : Math.max(fm.getHeight(), (height - barTop - PADDING) / rows);
+        double maxSpend = rows == 0 ? 1 : Math.max(1, series.categorySpend[0]);
+        int labelWidth = plotWidth / 3;
+
+        g2.drawString("Spend by category", PADDING, lineHeight + PADDING + fm.getAscent() - fm.getHeight() / 2);
+        for (int i = 0; i < rows; i++) {
+            int y = barTop + i * rowHeight;
+            int barWidth = (int) (series.categorySpend[i] / maxSpend * (plotWidth - labelWidth));
+            g2.setColor(barColor);
+            g2.fillRoundRect(PADDING + labelWidth, y + 2, Math.max(2, barWidth), rowHeight - 4, 6, 6);
+            g2.setColor(textColor);
+            g2.drawString(series.categories[i], PADDING, y + (rowHeight + fm.getAscent()) / 2 - 1);
+        }
+
+        g2.dispose();
+        return image;
+    }
+
+    private static int lineChartHeight(int height) {
+        return height * 3 / 5;
+    }
+
+    // Chronological running balance plus category totals, built once per data load
+    private static final class Series {
+        static final Series EMPTY = new Series(new double[0], new double[0], 0, new String[0], new double[0]);
+
+        final double[] times;
+        final double[] balances;
+        final int size;
+        final double minBalance;
+        final double maxBalance;
+        final String[] categories;
+        final double[] categorySpend;
+
+        Series(double[] times, double[] balances, int size, String[] categories, double[] categorySpend) {
+            this.times = times;
+            this.balances = balances;
+            this.size = size;
+            this.categories = categories;
+            this.categorySpend = categorySpend;
+
+            double min = 0;
+            double max = 0;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, balances[i]);
+                max = Math.max(max, balances[i]);
+            }
+            this.minBalance = min;
+            this.maxBalance = max;
+        }
+
+        static Series from(List<Transaction> transactions, double endingBalance, FxRates fx) {
+            int size = transactions.size();
+            double[] times = new double[size];
+            double[] balances = new double[size];
+            Map<String, Double> spend = new HashMap<>();
+
+            // The ledger is loaded newest first; walk it back from today's balance
+            double running = endingBalance;
+            for (int i = size - 1; i >= 0; i--) {
+                Transaction t = transactions.get(size - 1 - i);
+                times[i] = t.getDateCreated();
+                balances[i] = running;
+                double amount = fx.toBase(t);
+                running -= t.isIncome() ? amount : -amount;
+                if (!t.isIncome() && !DatabaseConnection.TRANSFER_CATEGORY.equals(t.getCategory())) {
+                    spend.merge(t.getCategory(), amount, Double::sum);
+                }
+            }
+
+            List<Map.Entry<String, Double>> sorted = new ArrayList<>(spend.entrySet());
+            sorted.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+            String[] categories = new String[sorted.size()];
+            double[] categorySpend = new double[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                categories[i] = sorted.get(i).getKey();
+                categorySpend[i] = sorted.get(i).getValue();
+            }
+
+            return new Series(times, balances, size, categories, categorySpend);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BudgetTrackerTest {
+
+    private static final String FOOD = "🍕 Food & Dining";
+    private static final String RENT = "🏠 Housing & Rent";
+
+    // No rate file: every currency converts one to one
+    private static BudgetTracker tracker(Path dir) {
+        BudgetTracker tracker = new BudgetTracker(FxRates.load(dir.resolve("none.csv"), "KES"));
+        tracker.setLimits(Map.of(FOOD, 1000.0));
+        return tracker;
+    }
+
+    private static Transaction expense(double amount, String category, long when) {
+        return new Transaction(1, amount, "KES", "", category, false, when);
+    }
+
+    private static long lastMonth() {
+        return YearMonth.now().minusMonths(1).atDay(15).atTime(LocalTime.NOON)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void rebuildCountsExpensesPerCategoryAndMonth(@TempDir Path dir) {
+        BudgetTracker tracker = tracker(dir);
+        long now = System.currentTimeMillis();
+
+        tracker.rebuild(Arrays.asList(
+                expense(300, FOOD, now),
+                expense(200, FOOD, now),
+                expense(900, FOOD, lastMonth()),
+                expense(5000, RENT, now),
+                new Transaction(1, 700, "KES", "", FOOD, true, now)));
+
+        assertEquals(500.0, tracker.getSpent(FOOD, YearMonth.now()), 1e-9);
+        assertEquals(900.0, tracker.getSpent(FOOD, YearMonth.now().minusMonths(1)), 1e-9);
+        assertEquals(5000.0, tracker.getSpent(RENT, YearMonth.now()), 1e-9);
+        assertEquals(0.5, tracker.getProgress(FOOD), 1e-9);
+        assertEquals(0.0, tracker.getProgress(RENT), 1e-9);
+    }
+
+    @Test
+    void rebuildReplacesEarlierCounts(@TempDir Path dir) {
+        BudgetTracker tracker = tracker(dir);
+        long now = System.currentTimeMillis();
+        tracker.rebuild(Arrays.asList(expense(400, FOOD, now)));
+
+        tracker.rebuild(Arrays.asList(expense(100, FOOD, now)));
+
+        assertEquals(100.0, tracker.getSpent(FOOD, YearMonth.now()), 1e-9);
+    }
+
+    @Test
+    void recordAlertsOnlyWhenAThresholdIsCrossed(@TempDir Path dir) {
+        BudgetTracker tracker = tracker(dir);
+        long now = System.currentTimeMillis();
+
+        assertEquals(BudgetTracker.Alert.NONE, tracker.record(expense(700, FOOD, now)));
+        assertEquals(BudgetTracker.Alert.WARNING, tracker.record(expense(100, FOOD, now)));
+        assertEquals(BudgetTracker.Alert.NONE, tracker.record(expense(100, FOOD, now)));
+        assertEquals(BudgetTracker.Alert.EXCEEDED, tracker.record(expense(100, FOOD, now)));
+        assertEquals(BudgetTracker.Alert.NONE, tracker.record(expense(100, FOOD, now)));
+        assertEquals(1100.0, tracker.getSpent(FOOD, YearMonth.now()), 1e-9);
+    }
+
+    @Test
+    void incomeBackDatedRowsAndUnbudgetedCategoriesNeverAlert(@TempDir Path dir) {
+        BudgetTracker tracker = tracker(dir);
+        long now = System.currentTimeMillis();
+
+        assertEquals(BudgetTracker.Alert.NONE, tracker.record(new Transaction(1, 5000, "KES", "", FOOD, true, now)));
+        assertEquals(BudgetTracker.Alert.NONE, tracker.record(expense(5000, FOOD, lastMonth())));
+        assertEquals(BudgetTracker.Alert.NONE, tracker.record(expense(5000, RENT, now)));
+        assertEquals(0.0, tracker.getSpent(FOOD, YearMonth.now()), 1e-9);
+        assertEquals(5000.0, tracker.getSpent(FOOD, YearMonth.now().minusMonths(1)), 1e-9);
+    }
+
+    @Test
+    void limitsCanBeChangedOneAtATime(@TempDir Path dir) {
+        BudgetTracker tracker = tracker(dir);
+
+        tracker.setLimit(RENT, 20000);
+
+        assertTrue(tracker.hasLimit(RENT));
+        assertEquals(20000.0, tracker.getLimit(RENT), 1e-9);
+        tracker.setLimit(RENT, 0);
+        assertFalse(tracker.hasLimit(RENT));
+        assertEquals(1000.0, tracker.getLimit(FOOD), 1e-9);
+    }
+}
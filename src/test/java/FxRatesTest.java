@@ -0,0 +1,126 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FxRatesTest {
+
+    private static long utc(String date) {
+        return LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private static FxRates rates(Path dir, String base, String... lines) throws IOException {
+        Path file = dir.resolve("fx-rates.csv");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return FxRates.load(file, base);
+    }
+
+    private static Transaction row(double amount, String currency, String category, boolean income, String date) {
+        return new Transaction(1, amount, currency, "", category, income, utc(date));
+    }
+
+    @Test
+    void quotesAreForwardFilledAndClampedToTheQuotedRange(@TempDir Path dir) throws IOException {
+        FxRates fx = rates(dir, "KES",
+                "date,currency,rate",
+                "2025-01-10,USD,130",
+                "2025-01-13,USD,128",
+                "2025-01-15,USD,127");
+
+        assertEquals(130.0, fx.toBase(1, "USD", utc("2025-01-01")), 1e-9);
+        assertEquals(130.0, fx.toBase(1, "USD", utc("2025-01-10")), 1e-9);
+        assertEquals(130.0, fx.toBase(1, "USD", utc("2025-01-12") + 86_399_999L), 1e-9);
+        assertEquals(128.0, fx.toBase(1, "USD", utc("2025-01-13")), 1e-9);
+        assertEquals(128.0, fx.toBase(1, "USD", utc("2025-01-14")), 1e-9);
+        assertEquals(254.0, fx.toBase(2, "USD", utc("2025-01-15")), 1e-9);
+        assertEquals(127.0, fx.toBase(1, "USD", utc("2030-06-01")), 1e-9);
+        // Before 1970 the epoch day is negative; still the first quote
+        assertEquals(130.0, fx.toBase(1, "USD", -86_400_000L * 400), 1e-9);
+    }
+
+    @Test
+    void shillingsAndUnknownCurrenciesConvertOneToOne(@TempDir Path dir) throws IOException {
+        FxRates fx = rates(dir, "KES", "2025-01-10,USD,130");
+
+        assertEquals(99.5, fx.toBase(99.5, "KES", utc("2025-01-10")), 1e-9);
+        assertEquals(42.0, fx.toBase(42, "XYZ", utc("2025-01-10")), 1e-9);
+        assertEquals(List.of("KES", "USD"), fx.getCurrencies());
+    }
+
+    @Test
+    void anotherBaseCurrencyDividesByItsRate(@TempDir Path dir) throws IOException {
+        FxRates fx = rates(dir, "USD",
+                "2025-01-10,USD,125",
+                "2025-01-10,EUR,137.5");
+
+        assertEquals("USD", fx.getBaseCurrency());
+        assertEquals(2.0, fx.toBase(250, "KES", utc("2025-01-10")), 1e-9);
+        assertEquals(1.1, fx.toBase(1, "EUR", utc("2025-01-10")), 1e-9);
+        assertEquals(1.0, fx.toBase(1, "USD", utc("2025-01-10")), 1e-9);
+    }
+
+    @Test
+    void malformedLinesAndMissingFilesAreSkipped(@TempDir Path dir) throws IOException {
+        FxRates fx = rates(dir, "KES",
+                "# comment",
+                "2025-01-10,USD,abc",
+                "2025-13-40,USD,130",
+                "2025-01-10,USD,-5",
+                "2025-01-10,usd,131");
+
+        assertEquals(131.0, fx.toBase(1, "USD", utc("2025-01-10")), 1e-9);
+
+        FxRates none = FxRates.load(dir.resolve("missing.csv"), "KES");
+        assertEquals(List.of("KES"), none.getCurrencies());
+        assertEquals(7.0, none.toBase(7, "USD", utc("2025-01-10")), 1e-9);
+    }
+
+    @Test
+    void totalsKeepTransfersOutOfIncomeAndExpenses(@TempDir Path dir) throws IOException {
+        FxRates fx = rates(dir, "KES", "2025-01-01,USD,100", "2025-02-01,USD,200");
+        List<Transaction> rows = Arrays.asList(
+                row(1000, "KES", "💼 Business", true, "2025-01-05"),
+                row(2, "USD", "🍕 Food & Dining", false, "2025-01-20"),
+                row(1, "USD", "🍕 Food & Dining", false, "2025-02-03"),
+                row(300, "KES", DatabaseConnection.TRANSFER_CATEGORY, false, "2025-02-04"),
+                row(50, "KES", DatabaseConnection.TRANSFER_CATEGORY, true, "2025-02-05"));
+
+        double[] totals = fx.totals(rows, Collections.emptyList());
+
+        // expenses: 2 USD at 100 + 1 USD at 200; balance also moves by both transfers
+        assertArrayEquals(new double[] {1000, 400, 1000 - 400 - 300 + 50}, totals, 1e-9);
+    }
+
+    @Test
+    void closedPeriodsConvertAtTheirLastDay(@TempDir Path dir) throws IOException {
+        FxRates fx = rates(dir, "KES", "2024-12-01,USD,100", "2024-12-31,USD,150");
+        List<PeriodSummary> closed = Arrays.asList(
+                new PeriodSummary(1, YearMonth.of(2024, 12), "USD", 10, 4, -1, 3, 5),
+                new PeriodSummary(1, YearMonth.of(2024, 12), "KES", 500, 100, 0, 2, 400));
+
+        double[] totals = fx.totals(Collections.emptyList(), closed);
+
+        assertArrayEquals(new double[] {1500 + 500, 600 + 100, 750 + 400}, totals, 1e-9);
+    }
+
+    @Test
+    void symbolsForKnownCurrencies() {
+        assertEquals("KSh", FxRates.symbol("KES"));
+        assertEquals("$", FxRates.symbol("USD"));
+        assertEquals("€", FxRates.symbol("EUR"));
+        assertEquals("£", FxRates.symbol("GBP"));
+        assertEquals("JPY", FxRates.symbol("JPY"));
+    }
+}
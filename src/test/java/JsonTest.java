@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonTest {
+
+    @Test
+    void quoteEscapesSpecialAndControlCharacters() {
+        assertEquals("\"plain\"", Json.quote("plain"));
+        assertEquals("\"a\\\"b\\\\c\"", Json.quote("a\"b\\c"));
+        assertEquals("\"line\\nnext\\r\\ttab\"", Json.quote("line\nnext\r\ttab"));
+        assertEquals("\"\\u0001\\u001f\"", Json.quote("\u0001\u001f"));
+        assertEquals("\"🍕 Food\"", Json.quote("🍕 Food"));
+        assertEquals("null", Json.quote(null));
+    }
+
+    @Test
+    void amountsAreExactTwoDecimalPlainNumbers() {
+        assertEquals("123.45", Json.amount(12345L));
+        assertEquals("-0.05", Json.amount(-5L));
+        assertEquals("0.00", Json.amount(0L));
+        assertEquals("10000000.00", Json.amount(10_000_000.0));
+        assertEquals("0.30", Json.amount(0.1 + 0.2));
+    }
+
+    @Test
+    void parsesFlatObjectsIntoRawStrings() {
+        Map<String, String> values = Json.parseObject(
+                " { \"amount\" : 250.5, \"income\":false, \"note\":null, \"description\":\"Lunch \\\"out\\\"\\n\","
+                + " \"category\":\"\\ud83c\\udf55 Food\", \"exp\":-1.5e3 } ");
+
+        assertEquals("250.5", values.get("amount"));
+        assertEquals("false", values.get("income"));
+        assertTrue(values.containsKey("note"));
+        assertNull(values.get("note"));
+        assertEquals("Lunch \"out\"\n", values.get("description"));
+        assertEquals("🍕 Food", values.get("category"));
+        assertEquals("-1.5e3", values.get("exp"));
+        assertTrue(Json.parseObject("{}").isEmpty());
+    }
+
+    @Test
+    void rejectsAnythingButAFlatObject() {
+        String[] invalid = {
+                "", "[]", "{\"a\":{}}", "{\"a\":[1]}", "{\"a\":1} trailing", "{\"a\":1,}",
+                "{\"a\":\"unterminated}", "{\"a\":\"bad \\x escape\"}", "{\"a\":\"\\u12\"}", "{\"a\":truthy}", "{a:1}"
+        };
+        for (String text : invalid) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parseObject(text), text);
+        }
+    }
+
+    @Test
+    void transactionRoundTripsThroughTheParser() {
+        Transaction t = new Transaction(42, 3, 123456, "USD", "Rent \"March\"", "🏠 Housing & Rent", false, 1_700_000_000_000L);
+
+        Map<String, String> values = Json.parseObject(Json.transaction(t));
+
+        assertEquals("42", values.get("id"));
+        assertEquals("3", values.get("accountId"));
+        assertEquals("1234.56", values.get("amount"));
+        assertEquals("USD", values.get("currency"));
+        assertEquals("Rent \"March\"", values.get("description"));
+        assertEquals("🏠 Housing & Rent", values.get("category"));
+        assertEquals("false", values.get("income"));
+        assertEquals("1700000000000", values.get("dateCreated"));
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    private static long[] record(long... values) {
+        LoadGenerator.LatencyHistogram histogram = new LoadGenerator.LatencyHistogram();
+        for (long value : values) {
+            histogram.record(value);
+        }
+        return histogram.counts();
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        long[] counts = record();
+
+        assertEquals(0, LoadGenerator.LatencyHistogram.total(counts));
+        assertEquals(0, LoadGenerator.LatencyHistogram.percentile(counts, 0.99));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LoadGenerator.LatencyHistogram.percentile(record(value), 0.5), "value " + value);
+        }
+        // Negative durations (clock steps) count as zero
+        assertEquals(0, LoadGenerator.LatencyHistogram.percentile(record(-5), 1.0));
+    }
+
+    @Test
+    void largerValuesStayWithinTheSubBucketError() {
+        for (long value = 64; value < 100_000_000L; value = value * 3 / 2 + 1) {
+            long bound = LoadGenerator.LatencyHistogram.percentile(record(value), 1.0);
+            assertTrue(bound >= value, "upper bound below " + value);
+            assertTrue(bound - value <= value / 32, "bound " + bound + " too far above " + value);
+        }
+    }
+
+    @Test
+    void bucketBoundariesAreInclusive() {
+        // 1007 is the last value of the bucket starting at 992
+        assertEquals(1007, LoadGenerator.LatencyHistogram.percentile(record(992), 1.0));
+        assertEquals(1007, LoadGenerator.LatencyHistogram.percentile(record(1007), 1.0));
+        assertEquals(1023, LoadGenerator.LatencyHistogram.percentile(record(1008), 1.0));
+    }
+
+    @Test
+    void hugeValuesLandInTheLastBucket() {
+        long[] counts = record(Long.MAX_VALUE, 1L << 40);
+
+        assertEquals(2, counts[counts.length - 1]);
+    }
+
+    @Test
+    void percentilesFollowTheRankOfTheRecordedValues() {
+        long[] values = new long[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        long[] counts = record(values);
+
+        assertEquals(100, LoadGenerator.LatencyHistogram.total(counts));
+        assertEquals(1, LoadGenerator.LatencyHistogram.percentile(counts, 0.0));
+        assertEquals(50, LoadGenerator.LatencyHistogram.percentile(counts, 0.5));
+        // From 64 up the buckets are two wide, reported by their upper bound
+        assertEquals(91, LoadGenerator.LatencyHistogram.percentile(counts, 0.9));
+        assertEquals(99, LoadGenerator.LatencyHistogram.percentile(counts, 0.99));
+        assertEquals(101, LoadGenerator.LatencyHistogram.percentile(counts, 1.0));
+    }
+
+    @Test
+    void intervalCountsAreTheDifferenceOfSnapshots() {
+        LoadGenerator.LatencyHistogram histogram = new LoadGenerator.LatencyHistogram();
+        histogram.record(10);
+        long[] before = histogram.counts();
+        histogram.record(10);
+        histogram.record(20);
+
+        long[] delta = LoadGenerator.LatencyHistogram.minus(histogram.counts(), before);
+
+        assertEquals(2, LoadGenerator.LatencyHistogram.total(delta));
+        assertEquals(1, delta[10]);
+        assertEquals(1, delta[20]);
+        assertArrayEquals(new long[before.length], LoadGenerator.LatencyHistogram.minus(before, before));
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LedgerSnapshotFileTest {
+
+    private static LedgerSnapshot snapshot() {
+        List<Transaction> transactions = Arrays.asList(
+                new Transaction(9, 4, 1234567, "USD", "Salary \"March\", bonus", "💼 Business", true, 1_740_000_000_000L),
+                new Transaction(7, 4, 5, "KES", "", "🍕 Food & Dining", false, 1_730_000_000_000L),
+                new Transaction(3, 4, 45000, "KES", "Matatu ✓ naïve", "🚗 Transportation", false, -86_400_000L));
+        return new LedgerSnapshot(4, 9, 12345.67, 450.05, 11895.62, transactions);
+    }
+
+    private static void assertSameRows(List<Transaction> expected, List<Transaction> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Transaction e = expected.get(i);
+            Transaction a = actual.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getAccountId(), a.getAccountId());
+            assertEquals(e.getAmountCents(), a.getAmountCents());
+            assertEquals(e.getCurrency(), a.getCurrency());
+            assertEquals(e.getDescription(), a.getDescription());
+            assertEquals(e.getCategory(), a.getCategory());
+            assertEquals(e.isIncome(), a.isIncome());
+            assertEquals(e.getDateCreated(), a.getDateCreated());
+        }
+    }
+
+    @Test
+    void roundTripsRowsTotalsAndHighWaterMark(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("nested").resolve("ledger.snap");
+        LedgerSnapshot written = snapshot();
+
+        LedgerSnapshotFile.write(file, written);
+        LedgerSnapshot read = LedgerSnapshotFile.read(file);
+
+        assertEquals(4, read.getAccountId());
+        assertEquals(9, read.getHighWaterMark());
+        assertEquals(12345.67, read.getTotalIncome(), 0.0);
+        assertEquals(450.05, read.getTotalExpenses(), 0.0);
+        assertEquals(11895.62, read.getBalance(), 0.0);
+        assertSameRows(written.getTransactions(), read.getTransactions());
+        assertFalse(Files.exists(file.resolveSibling("ledger.snap.tmp")));
+    }
+
+    @Test
+    void roundTripsAnEmptyLedger(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("ledger.snap");
+
+        LedgerSnapshotFile.write(file, new LedgerSnapshot(2, 0, 0.0, 0.0, 0.0, new ArrayList<>()));
+
+        assertEquals(0, LedgerSnapshotFile.read(file).size());
+    }
+
+    @Test
+    void rewritingReplacesTheOldFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("ledger.snap");
+        LedgerSnapshotFile.write(file, snapshot());
+        LedgerSnapshotFile.read(file);
+
+        LedgerSnapshotFile.write(file, new LedgerSnapshot(4, 12, 1.0, 2.0, 3.0, new ArrayList<>()));
+
+        assertEquals(12, LedgerSnapshotFile.read(file).getHighWaterMark());
+    }
+
+    @Test
+    void missingTruncatedAndForeignFilesAreIgnored(@TempDir Path dir) throws IOException {
+        assertNull(LedgerSnapshotFile.read(dir.resolve("missing.snap")));
+
+        Path file = dir.resolve("ledger.snap");
+        LedgerSnapshotFile.write(file, snapshot());
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertNull(LedgerSnapshotFile.read(file));
+
+        Files.write(file, Arrays.copyOf(bytes, 10));
+        assertNull(LedgerSnapshotFile.read(file));
+
+        byte[] otherVersion = bytes.clone();
+        otherVersion[4]++;
+        Files.write(file, otherVersion);
+        assertNull(LedgerSnapshotFile.read(file));
+    }
+
+    @Test
+    void everyHeaderFieldAndThePayloadAreChecksummed(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("ledger.snap");
+        LedgerSnapshotFile.write(file, snapshot());
+        byte[] bytes = Files.readAllBytes(file);
+
+        // accountId, highWaterMark, rows, dictionary size, description bytes, totals; then a payload byte
+        int[] offsets = {8, 12, 16, 20, 24, 28, 36, 44, 60, bytes.length - 1};
+        for (int offset : offsets) {
+            byte[] corrupt = bytes.clone();
+            corrupt[offset] ^= 0x01;
+            Files.write(file, corrupt);
+            assertNull(LedgerSnapshotFile.read(file), "flipped byte " + offset);
+        }
+    }
+
+    @Test
+    void highWaterMarkIsStoredLittleEndianAfterTheAccount(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("ledger.snap");
+        LedgerSnapshotFile.write(file, snapshot());
+
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(4, header.getInt(8));
+        assertEquals(9, header.getInt(12));
+        assertEquals(3, header.getInt(16));
+    }
+}
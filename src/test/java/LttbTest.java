@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbTest {
+
+    private static double[] range(int length) {
+        double[] xs = new double[length];
+        for (int i = 0; i < length; i++) {
+            xs[i] = i;
+        }
+        return xs;
+    }
+
+    @Test
+    void keepsEveryPointWhenThereIsNothingToReduce() {
+        double[] xs = range(5);
+        double[] ys = {3, 1, 4, 1, 5};
+
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Lttb.downsample(xs, ys, 5, 5));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Lttb.downsample(xs, ys, 5, 10));
+        // Fewer than three points cannot keep both ends and a middle
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Lttb.downsample(xs, ys, 5, 2));
+        assertEquals(0, Lttb.downsample(new double[0], new double[0], 0, 100).length);
+    }
+
+    @Test
+    void keepsBothEndsAndOnePointPerBucketInOrder() {
+        int length = 1003;
+        int threshold = 50;
+        double[] xs = range(length);
+        double[] ys = new double[length];
+        for (int i = 0; i < length; i++) {
+            ys[i] = Math.sin(i / 17.0) * 100 + (i % 7);
+        }
+
+        int[] kept = Lttb.downsample(xs, ys, length, threshold);
+
+        assertEquals(threshold, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(length - 1, kept[threshold - 1]);
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int index = kept[bucket + 1];
+            assertTrue(index >= (int) (bucket * bucketSize) + 1, "bucket " + bucket);
+            assertTrue(index < (int) ((bucket + 1) * bucketSize) + 1, "bucket " + bucket);
+            assertTrue(index > kept[bucket], "ascending at " + bucket);
+        }
+    }
+
+    @Test
+    void keepsASpikeInAFlatSeries() {
+        int length = 500;
+        double[] xs = range(length);
+        double[] ys = new double[length];
+        ys[321] = 1_000;
+        ys[77] = -1_000;
+
+        int[] kept = Lttb.downsample(xs, ys, length, 20);
+
+        boolean spike = false;
+        boolean dip = false;
+        for (int index : kept) {
+            spike |= index == 321;
+            dip |= index == 77;
+        }
+        assertTrue(spike, "spike kept");
+        assertTrue(dip, "dip kept");
+    }
+
+    @Test
+    void threeBucketsKeepTheFurthestMiddlePoint() {
+        double[] xs = range(6);
+        double[] ys = {0, 1, 9, 2, 1, 0};
+
+        assertArrayEquals(new int[] {0, 2, 5}, Lttb.downsample(xs, ys, 6, 3));
+    }
+}
@@ -0,0 +1,190 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReconcilerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+    // Noon local time, so the calendar day is unambiguous in any zone
+    private static long at(LocalDate day) {
+        return day.atTime(LocalTime.NOON).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Transaction row(int id, long cents, String description, LocalDate day) {
+        return new Transaction(id, 1, cents, "KES", description, "🍕 Food & Dining", false, at(day));
+    }
+
+    @Test
+    void normalizeDropsPunctuationCaseAndLongReferenceNumbers() {
+        assertEquals("coffee shop ref", Reconciler.normalize("COFFEE-SHOP, ref #123456"));
+        assertEquals("bus 42", Reconciler.normalize("Bus 42"));
+        assertEquals("", Reconciler.normalize("  *** 98765 "));
+        assertEquals("m pesa abc123456", Reconciler.normalize("M-Pesa ABC123456"));
+    }
+
+    @Test
+    void similarityIsSharedWordsOverAllWords() {
+        assertEquals(1.0, Reconciler.similarity("coffee shop", "shop coffee"), 1e-9);
+        assertEquals(1.0 / 3, Reconciler.similarity("coffee shop", "coffee house"), 1e-9);
+        assertEquals(0.0, Reconciler.similarity("rent", "salary"), 1e-9);
+        assertEquals(1.0, Reconciler.similarity("", "anything"), 1e-9);
+    }
+
+    @Test
+    void sameDaySameDescriptionIsExactAndOlderRowIsKept() {
+        // Newest first, as the ledger is ordered
+        Transaction copy = row(2, 45000, "Coffee shop ref 99999", DAY);
+        Transaction original = row(1, 45000, "coffee shop ref 123456", DAY);
+
+        List<Reconciler.Match> matches = new Reconciler(Arrays.asList(copy, original)).findDuplicates();
+
+        assertEquals(1, matches.size());
+        assertSame(original, matches.get(0).getExisting());
+        assertSame(copy, matches.get(0).getDuplicate());
+        assertEquals(Reconciler.MatchType.EXACT, matches.get(0).getType());
+    }
+
+    @Test
+    void neighbouringDaysAreNearMatchesButTwoDaysApartAreNot() {
+        List<Transaction> ledger = Arrays.asList(
+                row(3, 1200, "Uber trip", DAY.plusDays(2)),
+                row(2, 1200, "UBER TRIP nairobi", DAY.plusDays(1)),
+                row(1, 1200, "Uber trip", DAY.minusDays(1)));
+
+        List<Reconciler.Match> matches = new Reconciler(ledger).findDuplicates();
+
+        assertEquals(1, matches.size());
+        assertEquals(3, matches.get(0).getDuplicate().getId());
+        assertEquals(2, matches.get(0).getExisting().getId());
+        assertEquals(Reconciler.MatchType.NEAR, matches.get(0).getType());
+    }
+
+    @Test
+    void amountCurrencyAndDirectionMustAllMatch() {
+        long when = at(DAY);
+        List<Transaction> ledger = Arrays.asList(
+                new Transaction(4, 1, 500, "KES", "Lunch", "🍕 Food & Dining", true, when),
+                new Transaction(3, 1, 500, "USD", "Lunch", "🍕 Food & Dining", false, when),
+                new Transaction(2, 1, 501, "KES", "Lunch", "🍕 Food & Dining", false, when),
+                new Transaction(1, 1, 500, "KES", "Lunch", "🍕 Food & Dining", false, when));
+
+        assertTrue(new Reconciler(ledger).findDuplicates().isEmpty());
+    }
+
+    @Test
+    void dissimilarDescriptionsOnTheSameDayAreKept() {
+        List<Transaction> ledger = Arrays.asList(
+                row(2, 10000, "Electricity token", DAY),
+                row(1, 10000, "Airtime top up", DAY));
+
+        assertTrue(new Reconciler(ledger).findDuplicates().isEmpty());
+    }
+
+    @Test
+    void everyLaterCopyPointsAtTheOldestRow() {
+        List<Transaction> ledger = Arrays.asList(
+                row(3, 300, "Matatu", DAY),
+                row(2, 300, "Matatu", DAY),
+                row(1, 300, "Matatu", DAY));
+
+        List<Reconciler.Match> matches = new Reconciler(ledger).findDuplicates();
+
+        assertEquals(2, matches.size());
+        for (Reconciler.Match match : matches) {
+            assertEquals(1, match.getExisting().getId());
+        }
+    }
+
+    @Test
+    void findsPlantedDuplicatesAmongManyRows() {
+        List<Transaction> ledger = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Distinct amounts, so only the planted copies can match
+            ledger.add(row(i + 1, 100 + i, "Shop " + i, DAY.minusDays(i % 400)));
+        }
+        ledger.add(0, row(60_001, 100 + 777, "Shop 777", DAY.minusDays(777 % 400)));
+        ledger.add(0, row(60_002, 100 + 4242, "shop 4242", DAY.minusDays(4242 % 400)));
+
+        List<Reconciler.Match> matches = new Reconciler(ledger).findDuplicates();
+
+        assertEquals(2, matches.size());
+    }
+
+    @Test
+    void eachExistingRowAbsorbsAtMostOneImportedLine() {
+        Transaction existing = row(1, 25000, "Coffee", DAY);
+        List<Transaction> imported = Arrays.asList(
+                row(0, 25000, "COFFEE", DAY),
+                row(0, 25000, "Coffee", DAY),
+                row(0, 9900, "Newspaper", DAY));
+
+        List<Reconciler.Match> result = new Reconciler(List.of(existing)).matchImported(imported);
+
+        assertEquals(3, result.size());
+        assertSame(existing, result.get(0).getExisting());
+        assertEquals(Reconciler.MatchType.EXACT, result.get(0).getType());
+        assertTrue(result.get(1).isNew());
+        assertNull(result.get(1).getType());
+        assertTrue(result.get(2).isNew());
+        assertSame(imported.get(2), result.get(2).getDuplicate());
+    }
+
+    @Test
+    void importPrefersAnExactMatchOverAnEarlierNearOne() {
+        Transaction sameDay = row(2, 8000, "Groceries", DAY);
+        Transaction dayBefore = row(1, 8000, "Groceries", DAY.minusDays(1));
+
+        List<Reconciler.Match> result = new Reconciler(Arrays.asList(sameDay, dayBefore))
+                .matchImported(List.of(row(0, 8000, "groceries", DAY)));
+
+        assertSame(sameDay, result.get(0).getExisting());
+        assertEquals(Reconciler.MatchType.EXACT, result.get(0).getType());
+    }
+
+    @Test
+    void readsStatementsWithHeaderQuotesAndSeveralDateFormats(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("statement.csv");
+        Files.write(file, Arrays.asList(
+                "Date,Description,Amount",
+                "2025-03-14,\"Java House, Westlands\",-650.50",
+                "15/03/2025,Salary,\"120,000.00\"",
+                "not a date,Broken,-1",
+                "",
+                "16 Mar 2025,\"Say \"\"hi\"\" shop\",-20"), StandardCharsets.UTF_8);
+
+        List<Transaction> lines = Reconciler.readStatement(file, 7, "USD", "🎯 Other");
+
+        assertEquals(3, lines.size());
+        Transaction coffee = lines.get(0);
+        assertEquals("Java House, Westlands", coffee.getDescription());
+        assertEquals(65050, coffee.getAmountCents());
+        assertFalse(coffee.isIncome());
+        assertEquals(7, coffee.getAccountId());
+        assertEquals("USD", coffee.getCurrency());
+        assertEquals(at(DAY), coffee.getDateCreated());
+
+        assertTrue(lines.get(1).isIncome());
+        assertEquals(12_000_000, lines.get(1).getAmountCents());
+        assertEquals(at(DAY.plusDays(1)), lines.get(1).getDateCreated());
+
+        assertEquals("Say \"hi\" shop", lines.get(2).getDescription());
+        assertEquals(at(DAY.plusDays(2)), lines.get(2).getDateCreated());
+    }
+}
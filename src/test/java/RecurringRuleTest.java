@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecurringRuleTest {
+
+    private static long at(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime local(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static RecurringRule rule(RecurringRule.Frequency frequency, LocalDateTime startsAt, int postedCount) {
+        return new RecurringRule(1, 1, 15000, "KES", "Rent", "🏠 Housing & Rent", false,
+                frequency, at(startsAt), postedCount);
+    }
+
+    @Test
+    void monthlyRulesStayAnchoredToTheLastDayOfTheMonth() {
+        RecurringRule rent = rule(RecurringRule.Frequency.MONTHLY, LocalDateTime.of(2025, 1, 31, 9, 0), 0);
+
+        assertEquals(LocalDateTime.of(2025, 1, 31, 9, 0), local(rent.occurrenceAt(0)));
+        assertEquals(LocalDateTime.of(2025, 2, 28, 9, 0), local(rent.occurrenceAt(1)));
+        // Derived from the anchor, not from February, so it does not drift to the 28th
+        assertEquals(LocalDateTime.of(2025, 3, 31, 9, 0), local(rent.occurrenceAt(2)));
+        assertEquals(LocalDateTime.of(2025, 4, 30, 9, 0), local(rent.occurrenceAt(3)));
+        assertEquals(LocalDateTime.of(2026, 1, 31, 9, 0), local(rent.occurrenceAt(12)));
+    }
+
+    @Test
+    void yearlyRulesFromALeapDayComeBackOnLeapYears() {
+        RecurringRule rule = rule(RecurringRule.Frequency.YEARLY, LocalDateTime.of(2024, 2, 29, 8, 30), 0);
+
+        assertEquals(LocalDateTime.of(2025, 2, 28, 8, 30), local(rule.occurrenceAt(1)));
+        assertEquals(LocalDateTime.of(2028, 2, 29, 8, 30), local(rule.occurrenceAt(4)));
+    }
+
+    @Test
+    void dailyAndWeeklyRulesKeepTheirLocalTime() {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 7, 15);
+
+        assertEquals(start.plusDays(45), local(rule(RecurringRule.Frequency.DAILY, start, 0).occurrenceAt(45)));
+        assertEquals(start.plusWeeks(10), local(rule(RecurringRule.Frequency.WEEKLY, start, 0).occurrenceAt(10)));
+    }
+
+    @Test
+    void nextRunFollowsThePostedCount() {
+        RecurringRule rent = rule(RecurringRule.Frequency.MONTHLY, LocalDateTime.of(2025, 1, 31, 9, 0), 2);
+
+        assertEquals(rent.occurrenceAt(2), rent.getNextRun());
+
+        rent.setPostedCount(5);
+
+        assertEquals(5, rent.getPostedCount());
+        assertEquals(LocalDateTime.of(2025, 6, 30, 9, 0), local(rent.getNextRun()));
+    }
+}
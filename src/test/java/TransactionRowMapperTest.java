@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionRowMapperTest {
+
+    // Columns in a different order from the table, as a UNION or join may return them
+    private static final List<String> COLUMNS = Arrays.asList(
+            "date_created", "amount", "id", "currency", "is_income", "description", "category", "account_id");
+
+    // A single-row result set answering only the calls the mapper makes
+    private static ResultSet row(Object... values) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findColumn")) {
+                        int index = COLUMNS.indexOf((String) args[0]);
+                        if (index < 0) {
+                            throw new SQLException("no column " + args[0]);
+                        }
+                        return index + 1;
+                    }
+                    if (args != null && args.length == 1 && args[0] instanceof Integer) {
+                        return values[(Integer) args[0] - 1];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void mapsColumnsByNameWhateverTheirOrder() throws SQLException {
+        ResultSet rs = row(new Timestamp(1_740_000_000_123L), new BigDecimal("1234.56"), 42, "USD", true,
+                "Salary", "💼 Business", 7);
+
+        Transaction t = new TransactionRowMapper(rs).map(rs);
+
+        assertEquals(42, t.getId());
+        assertEquals(7, t.getAccountId());
+        assertEquals(123456, t.getAmountCents());
+        assertEquals("USD", t.getCurrency());
+        assertEquals("Salary", t.getDescription());
+        assertEquals("💼 Business", t.getCategory());
+        assertTrue(t.isIncome());
+        assertEquals(1_740_000_000_123L, t.getDateCreated());
+    }
+
+    @Test
+    void amountsAreExactCentsBeyondDoublePrecision() throws SQLException {
+        // 2^53 + 1 cents has no exact double
+        ResultSet rs = row(new Timestamp(0), new BigDecimal("90071992547409.93"), 1, "KES", false, "", "", 1);
+
+        assertEquals(9_007_199_254_740_993L, new TransactionRowMapper(rs).map(rs).getAmountCents());
+    }
+
+    @Test
+    void subCentAmountsAreRejected() throws SQLException {
+        ResultSet rs = row(new Timestamp(0), new BigDecimal("0.005"), 1, "KES", false, "", "", 1);
+        TransactionRowMapper mapper = new TransactionRowMapper(rs);
+
+        assertThrows(ArithmeticException.class, () -> mapper.map(rs));
+    }
+}